@@ -0,0 +1,81 @@
+package net.jtownson.odysseyj;
+
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+
+import java.security.PublicKey;
+import java.time.LocalDate;
+import java.util.concurrent.CompletableFuture;
+
+import static net.jtownson.odysseyj.URICreator.uri;
+
+class BenchmarkFixtures {
+
+    static final String SMALL = "small";
+    static final String LARGE = "large";
+
+    static ObjectNode subject(String size) {
+        ObjectNode subject = JsonNodeFactory.instance.objectNode();
+        subject.put("id", "did:ata:abc123");
+        subject.put("name", "Her Majesty The Queen");
+        subject.put("address", "Buckingham Palace, SW1A 1AA");
+        if (LARGE.equals(size)) {
+            ArrayNode history = subject.putArray("addressHistory");
+            for (int i = 0; i < 250; i++) {
+                ObjectNode entry = history.addObject();
+                entry.put("line1", i + " Some Street");
+                entry.put("town", "Some Town");
+                entry.put("postcode", "AB" + i + " 1CD");
+                entry.put("from", "2000-01-01T00:00:00Z");
+                entry.put("verified", i % 2 == 0);
+            }
+        }
+        return subject;
+    }
+
+    static VC credential(String size) {
+        return VC.builder()
+                .context(uri("https://www.w3.org/2018/credentials/v1"))
+                .context(uri("https://www.w3.org/2018/credentials/examples/v1"))
+                .type("VerifiableCredential")
+                .type("AddressCredential")
+                .id("https://www.postoffice.co.uk/addresses/1234")
+                .issuer(uri("https://www.postoffice.co.uk"))
+                .issuanceDate(LocalDate.of(2020, 1, 1).atStartOfDay())
+                .expirationDate(LocalDate.of(2021, 1, 1).atStartOfDay())
+                .credentialSubject(subject(size))
+                .build();
+    }
+
+    static VP presentation(int credentials, String size) {
+        VP.VPBuilder builder = VP.builder()
+                .context(uri("https://www.w3.org/2018/credentials/v1"))
+                .type("VerifiablePresentation")
+                .holder(uri("did:example:ebfeb1f712ebc6f1c276e12ec21"));
+        VC vc = credential(size);
+        for (int i = 0; i < credentials; i++) {
+            builder.verifiableCredential(vc);
+        }
+        return builder.build();
+    }
+
+    static String jws(SignatureDefinition signatureDefinition, String size) throws Exception {
+        VC vc = credential(size);
+        return VC.jwsBuilder()
+                .additionalType("AddressCredential")
+                .additionalContext(uri("https://www.w3.org/2018/credentials/examples/v1"))
+                .id(vc.getId().get())
+                .issuer(vc.getIssuer())
+                .issuanceDate(vc.getIssuanceDate())
+                .expirationDate(vc.getExpirationDate().get())
+                .credentialSubject(subject(size))
+                .signatureDefinition(signatureDefinition)
+                .build();
+    }
+
+    static PublicKeyResolver fixedKeyResolver(PublicKey publicKey) {
+        CompletableFuture<PublicKey> resolved = CompletableFuture.completedFuture(publicKey);
+        return publicKeyRef -> resolved;
+    }
+}
@@ -0,0 +1,47 @@
+package net.jtownson.odysseyj;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the JSON and CBOR codecs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BinaryCodecBenchmark {
+
+    @Param({"1", "10", "1000"})
+    public int credentials;
+
+    @Param({BenchmarkFixtures.SMALL, BenchmarkFixtures.LARGE})
+    public String subjectSize;
+
+    @Param({"json", "cbor"})
+    public String format;
+
+    private CodecContext codec;
+    private VP vp;
+    private byte[] encoded;
+
+    @Setup
+    public void setup() {
+        codec = "cbor".equals(format) ? CodecContext.CBOR : CodecContext.DEFAULT;
+        vp = BenchmarkFixtures.presentation(credentials, subjectSize);
+        encoded = codec.encode(vp);
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return codec.encode(vp);
+    }
+
+    @Benchmark
+    public VP decode() throws Exception {
+        return codec.decodeVp(encoded);
+    }
+}
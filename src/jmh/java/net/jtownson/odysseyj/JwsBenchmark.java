@@ -0,0 +1,127 @@
+package net.jtownson.odysseyj;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.jose4j.jwa.AlgorithmConstraints;
+import org.jose4j.jws.JsonWebSignature;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.Collections.singletonList;
+import static net.jtownson.odysseyj.URICreator.url;
+import static org.jose4j.jws.AlgorithmIdentifiers.ECDSA_USING_P256_CURVE_AND_SHA256;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwsBenchmark {
+
+    private static final List<String> ES256 = singletonList(ECDSA_USING_P256_CURVE_AND_SHA256);
+
+    @Param({BenchmarkFixtures.SMALL, BenchmarkFixtures.LARGE})
+    public String subjectSize;
+
+    private SignatureDefinition signatureDefinition;
+    private PublicKeyResolver resolver;
+    private VC vc;
+    private String jws;
+    private String jwt;
+    private DetachedJws detachedJws;
+    private VerifiedJwsCache cache;
+
+    @Setup
+    public void setup() throws Exception {
+        signatureDefinition = KeyFoo.getKeyPair();
+        resolver = BenchmarkFixtures.fixedKeyResolver(KeyFoo.getPublicKeyFromRef(signatureDefinition.getPublicKeyRef()));
+        vc = BenchmarkFixtures.credential(subjectSize);
+        jws = BenchmarkFixtures.jws(signatureDefinition, subjectSize);
+        jwt = new JwsSigner(signatureDefinition, JwsLayout.PAYLOAD).sign(vc);
+        detachedJws = new JwsSigner(signatureDefinition).signDetached(vc);
+        Instant beforeExpiry = LocalDate.of(2020, 6, 1).atStartOfDay().toInstant(ZoneOffset.UTC);
+        cache = VerifiedJwsCache.builder().clock(Clock.fixed(beforeExpiry, ZoneOffset.UTC)).build();
+    }
+
+    @Benchmark
+    public String encodeJws() {
+        return JwsCodec.encodeJws(
+                signatureDefinition.getPrivateKey(),
+                signatureDefinition.getPublicKeyRef(),
+                signatureDefinition.getAlg(),
+                vc);
+    }
+
+    @State(Scope.Thread)
+    public static class WarmSigner {
+        JwsSigner signer;
+
+        @Setup
+        public void setup() throws Exception {
+            signer = new JwsSigner(KeyFoo.getKeyPair());
+        }
+    }
+
+    @Benchmark
+    public String encodeJwsWarmSigner(WarmSigner warmSigner) {
+        return warmSigner.signer.sign(vc);
+    }
+
+    @Benchmark
+    public VC decodeJws() throws Exception {
+        return JwsCodec.decodeJws(ES256, resolver, jws).get();
+    }
+
+    @Benchmark
+    public VC decodeJwt() throws Exception {
+        return JwsCodec.decodeJws(ES256, resolver, jwt).get();
+    }
+
+    @Benchmark
+    public VC decodeDetachedJws() throws Exception {
+        return JwsCodec.decodeDetachedJws(ES256, resolver, detachedJws.getJws(), detachedJws.getPayload()).get();
+    }
+
+    /**
+     * Reading alg and kid, as a batch does before grouping by key, with the credential in the header.
+     */
+    @Benchmark
+    public String parseHeader() throws Exception {
+        return CompactJws.parse(ES256, jws).getKid();
+    }
+
+    @Benchmark
+    public String parseJwtHeader() throws Exception {
+        return CompactJws.parse(ES256, jwt).getKid();
+    }
+
+    @Benchmark
+    public VC decodeJwsCached() throws Exception {
+        return JwsCodec.decodeJws(ES256, resolver, jws, cache).get();
+    }
+
+    /**
+     * The previous decode path: jose4j parses the header, which is then re-serialised and parsed again
+     * to reach the vc member. Kept as a baseline for decodeJws.
+     */
+    @Benchmark
+    public VC decodeJwsTwoPass() throws Exception {
+        JsonWebSignature jws = new JsonWebSignature();
+        jws.setCompactSerialization(this.jws);
+        jws.setAlgorithmConstraints(new AlgorithmConstraints(
+                AlgorithmConstraints.ConstraintType.WHITELIST, ECDSA_USING_P256_CURVE_AND_SHA256));
+        jws.setKey(resolver.resolvePublicKey(url(jws.getHeader("kid"))).get());
+        if (!jws.verifySignature()) {
+            throw new InvalidSignature();
+        }
+        JsonNode header = new ObjectMapper().readTree(jws.getHeaders().getFullHeaderAsJsonString());
+        return VCJsonCodec.decode(header.get("vc"));
+    }
+}
@@ -0,0 +1,268 @@
+package net.jtownson.odysseyj;
+
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import picocli.CommandLine;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+
+import java.net.URL;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static java.util.Collections.singletonList;
+import static net.jtownson.odysseyj.URICreator.url;
+import static org.jose4j.jws.AlgorithmIdentifiers.ECDSA_USING_P256_CURVE_AND_SHA256;
+
+/**
+ * Issues and verifies synthetic credentials from several threads and reports latency percentiles.
+ * Fails the run if any verification gives an unexpected outcome.
+ */
+@Command(name = "load-test", mixinStandardHelpOptions = true,
+        description = "Issues and verifies synthetic credentials from several threads and reports latency percentiles.")
+public class LoadTest implements Callable<Integer> {
+
+    private static final List<String> ES256 = singletonList(ECDSA_USING_P256_CURVE_AND_SHA256);
+
+    @Option(names = {"-j", "--threads"}, description = "Worker threads. Defaults to ${DEFAULT-VALUE}.")
+    private int threads = Runtime.getRuntime().availableProcessors();
+
+    @Option(names = {"-d", "--duration"}, description = "Measured seconds. Defaults to ${DEFAULT-VALUE}.")
+    private int duration = 30;
+
+    @Option(names = "--warmup", description = "Seconds run before measuring. Defaults to ${DEFAULT-VALUE}.")
+    private int warmup = 5;
+
+    @Option(names = "--issuers", description = "Distinct issuers, each with its own key. Defaults to ${DEFAULT-VALUE}.")
+    private int issuers = 4;
+
+    @Option(names = "--subject-bytes", description = "Approximate size of each credentialSubject. Defaults to ${DEFAULT-VALUE}.")
+    private int subjectBytes = 256;
+
+    @Option(names = "--invalid", description = "Fraction of verified tokens with a bad signature. Defaults to ${DEFAULT-VALUE}.")
+    private double invalidRatio = 0.1;
+
+    @Option(names = "--issue-percent", description = "Percentage of operations that issue rather than verify. " +
+            "Defaults to ${DEFAULT-VALUE}.")
+    private int issuePercent = 10;
+
+    @Option(names = "--tokens", description = "Pre-issued tokens cycled through by verification. Defaults to ${DEFAULT-VALUE}.")
+    private int tokens = 1000;
+
+    @Option(names = "--resolver-delay-ms", description = "Delay before the stand-in resolver answers. Defaults to ${DEFAULT-VALUE}.")
+    private long resolverDelayMillis = 2;
+
+    @Option(names = "--key-cache", description = "Put a CachingPublicKeyResolver in front of the stand-in resolver.")
+    private boolean keyCache;
+
+    @Option(names = "--layout", description = "JWS layout of issued tokens, HEADER or PAYLOAD. Defaults to ${DEFAULT-VALUE}.")
+    private JwsLayout layout = JwsLayout.HEADER;
+
+    private final LatencyHistogram issueLatency = new LatencyHistogram();
+    private final LatencyHistogram verifyLatency = new LatencyHistogram();
+    private final AtomicLong unexpected = new AtomicLong();
+    private final AtomicReference<String> firstUnexpected = new AtomicReference<>();
+
+    private final List<SignatureDefinition> keys = new ArrayList<>();
+    private final List<Token> pool = new ArrayList<>();
+    private PublicKeyResolver resolver;
+    private ScheduledExecutorService scheduler;
+
+    public static void main(String[] args) {
+        System.exit(new CommandLine(new LoadTest()).execute(args));
+    }
+
+    @Override
+    public Integer call() throws Exception {
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "stand-in-resolver");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Map<String, PublicKey> publicKeys = generateKeys();
+        PublicKeyResolver standIn = publicKeyRef -> resolve(publicKeys, publicKeyRef);
+        resolver = keyCache ? CachingPublicKeyResolver.of(standIn) : standIn;
+        issuePool();
+
+        System.out.printf("threads=%d duration=%ds warmup=%ds issuers=%d subject=%dB invalid=%.0f%% issue=%d%% " +
+                        "resolver-delay=%dms key-cache=%s layout=%s%n",
+                threads, duration, warmup, issuers, subjectBytes, invalidRatio * 100, issuePercent,
+                resolverDelayMillis, keyCache, layout);
+
+        run(warmup);
+        issueLatency.reset();
+        verifyLatency.reset();
+        run(duration);
+
+        System.out.printf("%-10s %10s %10s %10s %10s %10s %10s%n", "operation", "count", "ops/s", "p50_us", "p99_us",
+                "p999_us", "max_us");
+        report("issue", issueLatency);
+        report("verify", verifyLatency);
+        System.out.println("unexpected outcomes: " + unexpected.get() +
+                (firstUnexpected.get() == null ? "" : " (first: " + firstUnexpected.get() + ")"));
+        return unexpected.get() == 0 ? 0 : 1;
+    }
+
+    private void run(int seconds) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        List<Thread> workers = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            Thread worker = new Thread(() -> work(deadline), "load-" + i);
+            workers.add(worker);
+            worker.start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+    }
+
+    private void work(long deadline) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (System.nanoTime() < deadline) {
+            if (random.nextInt(100) < issuePercent) {
+                int issuer = random.nextInt(issuers);
+                long start = System.nanoTime();
+                issue(issuer, random.nextInt(), keys.get(issuer));
+                issueLatency.record(System.nanoTime() - start);
+            } else {
+                Token token = pool.get(random.nextInt(pool.size()));
+                long start = System.nanoTime();
+                Object outcome = verify(token.jws);
+                verifyLatency.record(System.nanoTime() - start);
+                check(token, outcome);
+            }
+        }
+    }
+
+    private Object verify(String jws) {
+        try {
+            return VC.fromJws(ES256, resolver, jws).get();
+        } catch (ExecutionException e) {
+            return CachingPublicKeyResolver.unwrap(e);
+        } catch (Exception e) {
+            return e;
+        }
+    }
+
+    private void check(Token token, Object outcome) {
+        boolean expected = token.valid
+                ? outcome instanceof VC && token.id.equals(((VC) outcome).getId().orElse(null))
+                : outcome instanceof InvalidSignature;
+        if (!expected) {
+            unexpected.incrementAndGet();
+            firstUnexpected.compareAndSet(null, token.id + " (valid=" + token.valid + ") gave " + outcome);
+        }
+    }
+
+    private String issue(int issuer, int serial, SignatureDefinition signatureDefinition) {
+        return JwsCodecTest.issue("https://issuer-" + issuer + ".example/credentials/" + serial, subject(serial), null,
+                layout, signatureDefinition);
+    }
+
+    private ObjectNode subject(int serial) {
+        ObjectNode subject = JsonNodeFactory.instance.objectNode();
+        subject.put("id", "did:example:" + serial);
+        StringBuilder padding = new StringBuilder();
+        for (int i = 0; padding.length() < subjectBytes; i++) {
+            padding.append("field-").append(i).append(' ');
+        }
+        subject.put("data", padding.toString());
+        return subject;
+    }
+
+    /**
+     * Tampers with a share of the tokens: half have their signature altered and half are signed with
+     * another issuer's key under the original kid.
+     */
+    private void issuePool() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < tokens; i++) {
+            int issuer = i % issuers;
+            String id = "https://issuer-" + issuer + ".example/credentials/" + i;
+            boolean valid = random.nextDouble() >= invalidRatio;
+            String jws;
+            if (valid) {
+                jws = issue(issuer, i, keys.get(issuer));
+            } else if (i % 2 == 0 || issuers == 1) {
+                jws = issue(issuer, i, keys.get(issuer));
+                int last = jws.length() - 2;
+                jws = jws.substring(0, last) + (jws.charAt(last) == 'A' ? 'B' : 'A') + jws.charAt(last + 1);
+            } else {
+                SignatureDefinition other = keys.get((issuer + 1) % issuers);
+                jws = issue(issuer, i, new SignatureDefinition(
+                        other.getAlg(), keys.get(issuer).getPublicKeyRef(), other.getPrivateKey()));
+            }
+            pool.add(new Token(id, jws, valid));
+        }
+    }
+
+    private Map<String, PublicKey> generateKeys() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+        generator.initialize(new ECGenParameterSpec("secp256r1"));
+        Map<String, PublicKey> publicKeys = new HashMap<>();
+        for (int i = 0; i < issuers; i++) {
+            KeyPair keyPair = generator.generateKeyPair();
+            URL publicKeyRef = url("https://issuer-" + i + ".example/keys#key-1");
+            keys.add(new SignatureDefinition(ECDSA_USING_P256_CURVE_AND_SHA256, publicKeyRef, keyPair.getPrivate()));
+            publicKeys.put(publicKeyRef.toString(), keyPair.getPublic());
+        }
+        return publicKeys;
+    }
+
+    private CompletableFuture<PublicKey> resolve(Map<String, PublicKey> publicKeys, URL publicKeyRef) {
+        PublicKey publicKey = publicKeys.get(publicKeyRef.toString());
+        CompletableFuture<PublicKey> resolved = new CompletableFuture<>();
+        Runnable answer = () -> {
+            if (publicKey == null) {
+                resolved.completeExceptionally(new KeyResolutionError("Unknown key " + publicKeyRef));
+            } else {
+                resolved.complete(publicKey);
+            }
+        };
+        if (resolverDelayMillis > 0) {
+            // Verification continues on the thread that completes the future, so hand it to a pool rather
+            // than serializing every verification on the scheduler thread.
+            scheduler.schedule(() -> ForkJoinPool.commonPool().execute(answer), resolverDelayMillis, TimeUnit.MILLISECONDS);
+        } else {
+            answer.run();
+        }
+        return resolved;
+    }
+
+    private void report(String operation, LatencyHistogram latency) {
+        long count = latency.getCount();
+        System.out.printf("%-10s %10d %10.1f %10.1f %10.1f %10.1f %10.1f%n", operation, count, (double) count / duration,
+                latency.getValueAtPercentile(50) / 1000.0,
+                latency.getValueAtPercentile(99) / 1000.0,
+                latency.getValueAtPercentile(99.9) / 1000.0,
+                latency.getMax() / 1000.0);
+    }
+
+    private static class Token {
+        final String id;
+        final String jws;
+        final boolean valid;
+
+        Token(String id, String jws, boolean valid) {
+            this.id = id;
+            this.jws = jws;
+            this.valid = valid;
+        }
+    }
+}
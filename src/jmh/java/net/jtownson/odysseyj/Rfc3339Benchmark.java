@@ -0,0 +1,47 @@
+package net.jtownson.odysseyj;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link Rfc3339} with the DateTimeFormatter pattern the codecs used before it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class Rfc3339Benchmark {
+
+    private static final DateTimeFormatter pattern = DateTimeFormatter
+            .ofPattern("yyyy-MM-dd'T'HH:mm:ss'Z'")
+            .withZone(ZoneId.of("UTC"));
+
+    private final String timestamp = "2010-01-01T19:23:24Z";
+    private final LocalDateTime dateTime = LocalDateTime.of(2010, 1, 1, 19, 23, 24);
+
+    @Benchmark
+    public LocalDateTime parseFormatter() {
+        return LocalDateTime.from(pattern.parse(timestamp));
+    }
+
+    @Benchmark
+    public LocalDateTime parseRfc3339() {
+        return Rfc3339.parse(timestamp);
+    }
+
+    @Benchmark
+    public String formatFormatter() {
+        return pattern.format(dateTime);
+    }
+
+    @Benchmark
+    public String formatRfc3339() {
+        return Rfc3339.format(dateTime);
+    }
+}
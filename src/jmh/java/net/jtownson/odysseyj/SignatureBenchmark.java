@@ -0,0 +1,79 @@
+package net.jtownson.odysseyj;
+
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.openjdk.jmh.annotations.*;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PublicKey;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.Collections.singletonList;
+import static net.jtownson.odysseyj.URICreator.url;
+
+/**
+ * Compares signing and verification of the small credential with ES256 and EdDSA (Ed25519) keys.
+ * Before Java 15, Ed25519 comes from BouncyCastle.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SignatureBenchmark {
+
+    @Param({"ES256", "EdDSA"})
+    public String alg;
+
+    private List<String> algs;
+    private SignatureDefinition signatureDefinition;
+    private PublicKey publicKey;
+    private PublicKeyResolver resolver;
+    private VC vc;
+    private String jws;
+
+    @Setup
+    public void setup() throws Exception {
+        algs = singletonList(alg);
+        if ("EdDSA".equals(alg)) {
+            KeyPair keyPair = KeyPairGenerator.getInstance("Ed25519", new BouncyCastleProvider()).generateKeyPair();
+            signatureDefinition = new SignatureDefinition(alg, url("https://issuer.example/keys#ed-1"), keyPair.getPrivate());
+            publicKey = keyPair.getPublic();
+        } else {
+            signatureDefinition = KeyFoo.getKeyPair();
+            publicKey = KeyFoo.getPublicKeyFromRef(signatureDefinition.getPublicKeyRef());
+        }
+        resolver = BenchmarkFixtures.fixedKeyResolver(publicKey);
+        vc = BenchmarkFixtures.credential(BenchmarkFixtures.SMALL);
+        jws = new JwsSigner(signatureDefinition).sign(vc);
+    }
+
+    @State(Scope.Thread)
+    public static class WarmSigner {
+        JwsSigner signer;
+
+        @Setup
+        public void setup(SignatureBenchmark benchmark) {
+            signer = new JwsSigner(benchmark.signatureDefinition);
+        }
+    }
+
+    @Benchmark
+    public String sign(WarmSigner warmSigner) {
+        return warmSigner.signer.sign(vc);
+    }
+
+    @Benchmark
+    public CompactJws verify() throws Exception {
+        CompactJws parsed = CompactJws.parse(algs, jws);
+        parsed.verifySignature(publicKey);
+        return parsed;
+    }
+
+    @Benchmark
+    public VC decodeJws() throws Exception {
+        return JwsCodec.decodeJws(algs, resolver, jws).get();
+    }
+}
@@ -0,0 +1,53 @@
+package net.jtownson.odysseyj;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VCCodecBenchmark {
+
+    @Param({BenchmarkFixtures.SMALL, BenchmarkFixtures.LARGE})
+    public String subjectSize;
+
+    private VC vc;
+    private byte[] json;
+
+    @Setup
+    public void setup() {
+        vc = BenchmarkFixtures.credential(subjectSize);
+        json = CodecContext.DEFAULT.encode(vc);
+    }
+
+    @Benchmark
+    public String encodeTree() {
+        return VCJsonCodec.encode(vc).toString();
+    }
+
+    @Benchmark
+    public byte[] encodeStream() {
+        return CodecContext.DEFAULT.encode(vc);
+    }
+
+    @Benchmark
+    public VC decodeTree() throws Exception {
+        JsonNode tree = CodecContext.DEFAULT.getObjectMapper().readTree(json);
+        return VCJsonCodec.decode(tree);
+    }
+
+    @Benchmark
+    public VC decodeStream() throws Exception {
+        return CodecContext.DEFAULT.decodeVc(json);
+    }
+
+    @Benchmark
+    public Object decodeLazyEnvelope() throws Exception {
+        return LazyVC.decode(json).getExpirationDate();
+    }
+}
@@ -0,0 +1,51 @@
+package net.jtownson.odysseyj;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VPCodecBenchmark {
+
+    @Param({"1", "10", "1000"})
+    public int credentials;
+
+    @Param({BenchmarkFixtures.SMALL, BenchmarkFixtures.LARGE})
+    public String subjectSize;
+
+    private VP vp;
+    private byte[] json;
+
+    @Setup
+    public void setup() {
+        vp = BenchmarkFixtures.presentation(credentials, subjectSize);
+        json = CodecContext.DEFAULT.encode(vp);
+    }
+
+    @Benchmark
+    public String encodeTree() {
+        return VPJsonCodec.encode(vp).toString();
+    }
+
+    @Benchmark
+    public byte[] encodeStream() {
+        return CodecContext.DEFAULT.encode(vp);
+    }
+
+    @Benchmark
+    public VP decodeTree() throws Exception {
+        JsonNode tree = CodecContext.DEFAULT.getObjectMapper().readTree(json);
+        return VPJsonCodec.decode(tree);
+    }
+
+    @Benchmark
+    public VP decodeStream() throws Exception {
+        return CodecContext.DEFAULT.decodeVp(json);
+    }
+}
@@ -0,0 +1,62 @@
+package net.jtownson.odysseyj;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.Collections.singletonList;
+import static org.jose4j.jws.AlgorithmIdentifiers.ECDSA_USING_P256_CURVE_AND_SHA256;
+
+/**
+ * Latency of verifying a signed presentation: the concurrent fan-out of VP.fromJws against verifying the
+ * presentation and then each embedded credential in turn.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VPJwsBenchmark {
+
+    private static final List<String> ES256 = singletonList(ECDSA_USING_P256_CURVE_AND_SHA256);
+
+    @Param({"20", "50"})
+    public int credentials;
+
+    private PublicKeyResolver resolver;
+    private List<String> credentialJws;
+    private String vpJws;
+
+    @Setup
+    public void setup() throws Exception {
+        SignatureDefinition signatureDefinition = KeyFoo.getKeyPair();
+        resolver = BenchmarkFixtures.fixedKeyResolver(KeyFoo.getPublicKeyFromRef(signatureDefinition.getPublicKeyRef()));
+        credentialJws = new ArrayList<>();
+        String jws = BenchmarkFixtures.jws(signatureDefinition, BenchmarkFixtures.SMALL);
+        for (int i = 0; i < credentials; i++) {
+            credentialJws.add(jws);
+        }
+        vpJws = VP.jwsBuilder()
+                .verifiableCredentials(credentialJws)
+                .signatureDefinition(signatureDefinition)
+                .build();
+    }
+
+    @Benchmark
+    public VP verifyConcurrently() throws Exception {
+        return VP.fromJws(ES256, resolver, vpJws).get();
+    }
+
+    @Benchmark
+    public VP verifySequentially() throws Exception {
+        VP.VPBuilder builder = VP.builder();
+        CompactJws.parse(ES256, vpJws).verifySignature(resolver.resolvePublicKey(null).get());
+        for (String jws : credentialJws) {
+            builder.verifiableCredential(JwsCodec.decodeJws(ES256, resolver, jws).get());
+        }
+        return builder.build();
+    }
+}
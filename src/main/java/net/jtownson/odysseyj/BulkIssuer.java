@@ -0,0 +1,111 @@
+package net.jtownson.odysseyj;
+
+import lombok.Builder;
+import lombok.SneakyThrows;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Signs credentials in parallel with one warm {@link JwsSigner} per worker thread, adding the type and context
+ * defaults of {@link VC#jwsBuilder()}. Results are handed to the sink on the calling thread, either in input order
+ * or as they complete. The first signing failure ends the issue call with an {@link IllegalStateException}
+ * whose cause is the failure; credentials not yet handed to the sink are discarded.
+ */
+public class BulkIssuer implements AutoCloseable {
+
+    private final ExecutorService executor;
+    private final ThreadLocal<JwsSigner> signers;
+    private final int maxInFlight;
+
+    @Builder
+    private BulkIssuer(SignatureDefinition signatureDefinition, Integer parallelism, Integer maxInFlight) {
+        if (signatureDefinition == null) {
+            throw new IllegalArgumentException("signatureDefinition must be provided.");
+        }
+        int threads = parallelism == null ? Runtime.getRuntime().availableProcessors() : parallelism;
+        if (threads < 1) {
+            throw new IllegalArgumentException("parallelism must be at least 1. Got " + parallelism);
+        }
+        this.maxInFlight = maxInFlight == null ? threads * 4 : Math.max(maxInFlight, threads);
+        this.signers = ThreadLocal.withInitial(() -> new JwsSigner(signatureDefinition));
+        this.executor = Executors.newFixedThreadPool(threads, daemonThreads());
+    }
+
+    public void issue(Stream<VC> credentials, Consumer<String> sink) {
+        issue(credentials.iterator(), sink);
+    }
+
+    public void issue(Iterator<VC> credentials, Consumer<String> sink) {
+        ArrayDeque<Future<String>> inFlight = new ArrayDeque<>(maxInFlight);
+        while (credentials.hasNext()) {
+            if (inFlight.size() == maxInFlight) {
+                sink.accept(await(inFlight.poll()));
+            }
+            VC vc = credentials.next();
+            inFlight.add(executor.submit(() -> signers.get().sign(VC.withDefaults(vc))));
+        }
+        while (!inFlight.isEmpty()) {
+            sink.accept(await(inFlight.poll()));
+        }
+    }
+
+    public void issueUnordered(Stream<VC> credentials, Consumer<String> sink) {
+        issueUnordered(credentials.iterator(), sink);
+    }
+
+    public void issueUnordered(Iterator<VC> credentials, Consumer<String> sink) {
+        ExecutorCompletionService<String> completions = new ExecutorCompletionService<>(executor);
+        int inFlight = 0;
+        while (credentials.hasNext()) {
+            if (inFlight == maxInFlight) {
+                sink.accept(await(take(completions)));
+                inFlight--;
+            }
+            VC vc = credentials.next();
+            completions.submit(() -> signers.get().sign(VC.withDefaults(vc)));
+            inFlight++;
+        }
+        for (; inFlight > 0; inFlight--) {
+            sink.accept(await(take(completions)));
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    @SneakyThrows
+    private static Future<String> take(ExecutorCompletionService<String> completions) {
+        return completions.take();
+    }
+
+    @SneakyThrows
+    private static String await(Future<String> jws) {
+        try {
+            return jws.get();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Unable to sign credential. Got an error: " + e.getCause().getMessage(),
+                    e.getCause());
+        }
+    }
+
+    private static ThreadFactory daemonThreads() {
+        AtomicInteger count = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, "odysseyj-issuer-" + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+}
@@ -0,0 +1,243 @@
+package net.jtownson.odysseyj;
+
+import lombok.Builder;
+
+import java.net.URL;
+import java.security.PublicKey;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+import static java.util.Collections.emptyList;
+
+/**
+ * Wraps a {@link PublicKeyResolver}, caching resolved keys (and, optionally, failures) by key reference.
+ * Concurrent lookups of the same reference share a single in-flight delegate call. Each caller receives its
+ * own future, so completing or cancelling it does not affect other callers or the cached key.
+ */
+public class CachingPublicKeyResolver implements PublicKeyResolver {
+
+    static final Duration DEFAULT_TTL = Duration.ofMinutes(10);
+    private static final int DEFAULT_MAXIMUM_SIZE = 1000;
+
+    private final PublicKeyResolver delegate;
+    private final Duration ttl;
+    private final long ttlNanos;
+    private final long negativeTtlNanos;
+    private final int maximumSize;
+    private final LongSupplier nanoTime;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    private final Map<String, Entry> entries;
+    private final List<Consumer<String>> removalListeners = new CopyOnWriteArrayList<>();
+    private List<String> removedKeys = new ArrayList<>();
+
+    @Builder
+    private CachingPublicKeyResolver(
+            PublicKeyResolver delegate,
+            Duration ttl,
+            Duration negativeTtl,
+            Integer maximumSize,
+            LongSupplier nanoTime) {
+
+        if (delegate == null) {
+            throw new IllegalArgumentException("delegate resolver must be provided.");
+        }
+        this.delegate = delegate;
+        this.ttl = ttl == null ? DEFAULT_TTL : ttl;
+        this.ttlNanos = this.ttl.toNanos();
+        this.negativeTtlNanos = negativeTtl == null ? 0 : negativeTtl.toNanos();
+        this.maximumSize = maximumSize == null ? DEFAULT_MAXIMUM_SIZE : maximumSize;
+        this.nanoTime = nanoTime == null ? System::nanoTime : nanoTime;
+        if (this.maximumSize < 1) {
+            throw new IllegalArgumentException("maximumSize must be at least 1. Got " + maximumSize);
+        }
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() > CachingPublicKeyResolver.this.maximumSize) {
+                    evictions.increment();
+                    removed(eldest.getKey());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public static CachingPublicKeyResolver of(PublicKeyResolver delegate) {
+        return builder().delegate(delegate).build();
+    }
+
+    @Override
+    public CompletableFuture<PublicKey> resolvePublicKey(URL publicKeyRef) {
+        String key = publicKeyRef.toString();
+        CompletableFuture<PublicKey> promise;
+        List<String> removed;
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                if (!entry.settled || entry.expiresAt - nanoTime.getAsLong() > 0) {
+                    hits.increment();
+                    return entry.future.thenApply(Function.identity());
+                }
+                entries.remove(key);
+                evictions.increment();
+                removed(key);
+            }
+            misses.increment();
+            promise = new CompletableFuture<>();
+            entries.put(key, new Entry(promise));
+            removed = takeRemovedKeys();
+        }
+        notifyRemoved(removed);
+        load(key, publicKeyRef, promise);
+        return promise.thenApply(Function.identity());
+    }
+
+    public void invalidate(URL publicKeyRef) {
+        String key = publicKeyRef.toString();
+        List<String> removed;
+        synchronized (entries) {
+            if (entries.remove(key) != null) {
+                removed(key);
+            }
+            removed = takeRemovedKeys();
+        }
+        notifyRemoved(removed);
+    }
+
+    public void invalidateAll() {
+        List<String> removed;
+        synchronized (entries) {
+            entries.keySet().forEach(this::removed);
+            entries.clear();
+            removed = takeRemovedKeys();
+        }
+        notifyRemoved(removed);
+    }
+
+    /**
+     * Registers a listener told the key reference of every entry that is invalidated, evicted or expires.
+     * Listeners run after the cache is unlocked, on the thread that removed the entry.
+     */
+    public void addRemovalListener(Consumer<String> listener) {
+        removalListeners.add(listener);
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public Duration getTtl() {
+        return ttl;
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    private void load(String key, URL publicKeyRef, CompletableFuture<PublicKey> promise) {
+        CompletableFuture<PublicKey> source;
+        try {
+            source = delegate.resolvePublicKey(publicKeyRef);
+        } catch (RuntimeException e) {
+            source = new CompletableFuture<>();
+            source.completeExceptionally(e);
+        }
+        source.whenComplete((publicKey, t) -> {
+            settle(key, promise, t == null);
+            if (t == null) {
+                promise.complete(publicKey);
+            } else {
+                promise.completeExceptionally(unwrap(t));
+            }
+        });
+    }
+
+    private void settle(String key, CompletableFuture<PublicKey> promise, boolean succeeded) {
+        long now = nanoTime.getAsLong();
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry == null || entry.future != promise) {
+                return;
+            }
+            if (succeeded) {
+                entry.expiresAt = now + ttlNanos;
+                entry.settled = true;
+            } else if (negativeTtlNanos > 0) {
+                entry.expiresAt = now + negativeTtlNanos;
+                entry.settled = true;
+            } else {
+                entries.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Records a removal while the cache is locked, to be passed to the listeners once it is unlocked.
+     */
+    private void removed(String key) {
+        removedKeys.add(key);
+    }
+
+    private List<String> takeRemovedKeys() {
+        if (removedKeys.isEmpty()) {
+            return emptyList();
+        }
+        List<String> taken = removedKeys;
+        removedKeys = new ArrayList<>();
+        return taken;
+    }
+
+    private void notifyRemoved(List<String> keys) {
+        for (String key : keys) {
+            for (Consumer<String> listener : removalListeners) {
+                listener.accept(key);
+            }
+        }
+    }
+
+    static Throwable unwrap(Throwable t) {
+        while ((t instanceof CompletionException || t instanceof ExecutionException) && t.getCause() != null) {
+            t = t.getCause();
+        }
+        return t;
+    }
+
+    /**
+     * An entry does not expire until its lookup settles. Guarded by the lock on entries.
+     */
+    private static final class Entry {
+        private final CompletableFuture<PublicKey> future;
+        private boolean settled;
+        private long expiresAt;
+
+        private Entry(CompletableFuture<PublicKey> future) {
+            this.future = future;
+        }
+    }
+}
@@ -0,0 +1,291 @@
+package net.jtownson.odysseyj;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import lombok.SneakyThrows;
+import net.jtownson.odysseyj.MetricsListener.Stage;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.function.Function;
+
+import static java.util.Collections.singletonList;
+
+/**
+ * Holds the shared, thread-safe Jackson state used by the codecs and writes or reads credentials
+ * and presentations without building intermediate trees. Instances are immutable and may be shared.
+ */
+public class CodecContext {
+
+    public static final CodecContext DEFAULT = new CodecContext(
+            new ObjectMapper(new JsonFactory().enable(JsonParser.Feature.STRICT_DUPLICATE_DETECTION)));
+
+    /**
+     * Encodes and decodes the same document structure as {@link #DEFAULT} in CBOR (RFC 7049),
+     * applying the same validation on decode.
+     */
+    public static final CodecContext CBOR = new CodecContext(
+            new ObjectMapper(new CBORFactory().enable(JsonParser.Feature.STRICT_DUPLICATE_DETECTION)));
+
+    private final ObjectMapper objectMapper;
+    private final ObjectReader reader;
+    private final ObjectWriter writer;
+
+    public CodecContext(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        this.reader = objectMapper.reader();
+        this.writer = objectMapper.writer();
+    }
+
+    public ObjectMapper getObjectMapper() {
+        return objectMapper;
+    }
+
+    public ObjectReader getReader() {
+        return reader;
+    }
+
+    public ObjectWriter getWriter() {
+        return writer;
+    }
+
+    public JsonFactory getFactory() {
+        return writer.getFactory();
+    }
+
+    public byte[] encode(VC vc) {
+        return toBytes(Stage.VC_ENCODE, gen -> JsonStreamEncoder.writeVc(gen, vc));
+    }
+
+    /**
+     * Writes the credential to the stream and flushes it. The stream is left open.
+     */
+    public void encode(VC vc, OutputStream out) {
+        write(Stage.VC_ENCODE, out, gen -> JsonStreamEncoder.writeVc(gen, vc));
+    }
+
+    /**
+     * Writes the credential at the buffer's position, advancing it past the encoded bytes.
+     * Throws {@link java.nio.BufferOverflowException} if the buffer is too small.
+     */
+    public ByteBuffer encode(VC vc, ByteBuffer target) {
+        write(Stage.VC_ENCODE, new ByteBufferOutputStream(target), gen -> JsonStreamEncoder.writeVc(gen, vc));
+        return target;
+    }
+
+    public byte[] encode(VP vp) {
+        return toBytes(Stage.VP_ENCODE, gen -> JsonStreamEncoder.writeVp(gen, vp));
+    }
+
+    public void encode(VP vp, OutputStream out) {
+        write(Stage.VP_ENCODE, out, gen -> JsonStreamEncoder.writeVp(gen, vp));
+    }
+
+    public ByteBuffer encode(VP vp, ByteBuffer target) {
+        write(Stage.VP_ENCODE, new ByteBufferOutputStream(target), gen -> JsonStreamEncoder.writeVp(gen, vp));
+        return target;
+    }
+
+    public VC decodeVc(byte[] json) throws ParseError {
+        return decode(Stage.VC_DECODE, () -> getFactory().createParser(json), JsonStreamDecoder::decodeVc);
+    }
+
+    /**
+     * Decodes the credential between the buffer's position and limit, leaving the buffer unchanged.
+     */
+    public VC decodeVc(ByteBuffer json) throws ParseError {
+        return decode(Stage.VC_DECODE, () -> json.hasArray()
+                ? getFactory().createParser(json.array(), json.arrayOffset() + json.position(), json.remaining())
+                : getFactory().createParser(new ByteBufferBackedInputStream(json.duplicate())), JsonStreamDecoder::decodeVc);
+    }
+
+    /**
+     * Reads one credential from the stream and leaves the stream open.
+     */
+    public VC decodeVc(InputStream json) throws ParseError {
+        return decode(Stage.VC_DECODE, () -> openParser(json), JsonStreamDecoder::decodeVc);
+    }
+
+    public VC decodeVc(File json) throws ParseError {
+        return decode(Stage.VC_DECODE, () -> getFactory().createParser(json), JsonStreamDecoder::decodeVc);
+    }
+
+    public VP decodeVp(byte[] json) throws ParseError {
+        return decode(Stage.VP_DECODE, () -> getFactory().createParser(json), JsonStreamDecoder::decodeVp);
+    }
+
+    public VP decodeVp(InputStream json) throws ParseError {
+        return decode(Stage.VP_DECODE, () -> openParser(json), JsonStreamDecoder::decodeVp);
+    }
+
+    public VP decodeVp(File json) throws ParseError {
+        return decode(Stage.VP_DECODE, () -> getFactory().createParser(json), JsonStreamDecoder::decodeVp);
+    }
+
+    /**
+     * Reads the document and reports every structural error in it, rather than stopping at the first.
+     * Unparseable JSON is reported as a single error against the whole document.
+     */
+    public ValidationResult<VC> validateVc(byte[] json) {
+        return validate(() -> getFactory().createParser(json), VCJsonCodec::validate);
+    }
+
+    public ValidationResult<VC> validateVc(InputStream json) {
+        return validate(() -> openParser(json), VCJsonCodec::validate);
+    }
+
+    public ValidationResult<VC> validateVc(File json) {
+        return validate(() -> getFactory().createParser(json), VCJsonCodec::validate);
+    }
+
+    public ValidationResult<VP> validateVp(byte[] json) {
+        return validate(() -> getFactory().createParser(json), VPJsonCodec::validate);
+    }
+
+    public ValidationResult<VP> validateVp(InputStream json) {
+        return validate(() -> openParser(json), VPJsonCodec::validate);
+    }
+
+    public ValidationResult<VP> validateVp(File json) {
+        return validate(() -> getFactory().createParser(json), VPJsonCodec::validate);
+    }
+
+    private interface GeneratorWriter {
+        void write(JsonGenerator gen) throws IOException;
+    }
+
+    private interface ParserSource {
+        JsonParser open() throws IOException;
+    }
+
+    private interface ParserReader<T> {
+        T read(JsonParser parser) throws ParseError, IOException;
+    }
+
+    private byte[] toBytes(Stage stage, GeneratorWriter writer) {
+        ByteArrayBuilder out = new ByteArrayBuilder();
+        write(stage, out, writer);
+        return out.toByteArray();
+    }
+
+    private JsonParser openParser(InputStream json) throws IOException {
+        return getFactory().createParser(json).disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+    }
+
+    @SneakyThrows
+    private void write(Stage stage, OutputStream out, GeneratorWriter writer) {
+        long start = Metrics.start();
+        CountingOutputStream counter = start == 0 ? null : new CountingOutputStream(out);
+        Throwable failure = null;
+        try (JsonGenerator gen = getFactory().createGenerator(counter == null ? out : counter)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) {
+            writer.write(gen);
+        } catch (IOException | RuntimeException e) {
+            failure = e;
+            throw e;
+        } finally {
+            Metrics.record(stage, start, counter == null ? -1 : counter.count, failure);
+        }
+    }
+
+    private <T> T decode(Stage stage, ParserSource source, ParserReader<T> reader) throws ParseError {
+        long start = Metrics.start();
+        long bytes = -1;
+        Throwable failure = null;
+        try (JsonParser parser = source.open()) {
+            T value = reader.read(parser);
+            bytes = parser.getCurrentLocation().getByteOffset();
+            return value;
+        } catch (IOException e) {
+            ParseError parseError = parseError(e);
+            failure = parseError;
+            throw parseError;
+        } catch (ParseError | RuntimeException e) {
+            failure = e;
+            throw e;
+        } finally {
+            Metrics.record(stage, start, bytes, failure);
+        }
+    }
+
+    private <T> ValidationResult<T> validate(ParserSource source, Function<JsonNode, ValidationResult<T>> validator) {
+        JsonNode json;
+        try (JsonParser parser = source.open()) {
+            json = reader.readTree(parser);
+        } catch (IOException e) {
+            return ValidationResult.invalid(singletonList(new ValidationError("", parseErrorMessage(e))));
+        }
+        if (json == null) {
+            return ValidationResult.invalid(singletonList(new ValidationError("", "Document is empty.")));
+        }
+        return validator.apply(json);
+    }
+
+    static ParseError parseError(IOException e) {
+        return new ParseError(parseErrorMessage(e));
+    }
+
+    private static String parseErrorMessage(IOException e) {
+        return "Unable to parse json. Caught an IOException: " + e.getMessage();
+    }
+
+    private static class CountingOutputStream extends OutputStream {
+        private final OutputStream out;
+        private long count;
+
+        private CountingOutputStream(OutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+
+    private static class ByteBufferOutputStream extends OutputStream {
+        private final ByteBuffer target;
+
+        private ByteBufferOutputStream(ByteBuffer target) {
+            this.target = target;
+        }
+
+        @Override
+        public void write(int b) {
+            target.put((byte) b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            target.put(b, off, len);
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package net.jtownson.odysseyj;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.AccessLevel;
+import lombok.Getter;
+import net.jtownson.odysseyj.MetricsListener.Stage;
+import org.jose4j.jca.ProviderContext;
+import org.jose4j.jwa.AlgorithmFactoryFactory;
+import org.jose4j.jws.JsonWebSignatureAlgorithm;
+import org.jose4j.lang.JoseException;
+
+import java.io.IOException;
+import java.security.PublicKey;
+import java.util.Base64;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
+/**
+ * A JWS compact serialization whose protected header is parsed once and whose payload is parsed on first use.
+ */
+@Getter
+public class CompactJws {
+
+    private static final ProviderContext providerContext = new ProviderContext();
+
+    private final String serialization;
+    private final JsonNode header;
+    private final String alg;
+    private final String kid;
+    private final int signingInputLength;
+
+    @Getter(AccessLevel.NONE)
+    private final int headerEnd;
+    @Getter(AccessLevel.NONE)
+    private final int payloadEnd;
+    @Getter(AccessLevel.NONE)
+    private final byte[] detachedPayload;
+    @Getter(AccessLevel.NONE)
+    private volatile JsonNode claims;
+
+    private CompactJws(
+            String serialization, JsonNode header, String alg, String kid, int headerEnd, int payloadEnd,
+            byte[] detachedPayload) {
+        this.serialization = serialization;
+        this.header = header;
+        this.alg = alg;
+        this.kid = kid;
+        this.headerEnd = headerEnd;
+        this.payloadEnd = payloadEnd;
+        this.detachedPayload = detachedPayload;
+        this.signingInputLength = detachedPayload == null ? payloadEnd : headerEnd + 1 + detachedPayload.length;
+    }
+
+    public static CompactJws parse(List<String> algWhitelist, String jwsSer) throws ParseError {
+        return parse(algWhitelist, jwsSer, null);
+    }
+
+    /**
+     * Parses a JWS serialized as header..signature whose unencoded (b64=false) payload is carried separately.
+     */
+    public static CompactJws parseDetached(List<String> algWhitelist, String jwsSer, byte[] payload) throws ParseError {
+        if (payload == null) {
+            throw new ParseError("A detached JWS payload must be provided.");
+        }
+        return parse(algWhitelist, jwsSer, payload);
+    }
+
+    private static CompactJws parse(List<String> algWhitelist, String jwsSer, byte[] detachedPayload) throws ParseError {
+        long start = Metrics.start();
+        try {
+            CompactJws jws = parseCompact(algWhitelist, jwsSer, detachedPayload);
+            Metrics.record(Stage.JWS_PARSE, start, jwsSer.length(), null);
+            return jws;
+        } catch (ParseError | RuntimeException e) {
+            Metrics.record(Stage.JWS_PARSE, start, jwsSer.length(), e);
+            throw e;
+        }
+    }
+
+    private static CompactJws parseCompact(List<String> algWhitelist, String jwsSer, byte[] detachedPayload)
+            throws ParseError {
+        int firstDot = jwsSer.indexOf('.');
+        int secondDot = firstDot < 0 ? -1 : jwsSer.indexOf('.', firstDot + 1);
+        if (secondDot < 0 || jwsSer.indexOf('.', secondDot + 1) >= 0) {
+            throw new ParseError("A JWS compact serialization must have exactly three parts.");
+        }
+
+        JsonNode header;
+        try {
+            byte[] headerBytes = Base64.getUrlDecoder().decode(jwsSer.substring(0, firstDot));
+            header = CodecContext.DEFAULT.getObjectMapper().readTree(headerBytes);
+        } catch (IllegalArgumentException e) {
+            throw new ParseError("JWS header is not valid base64url.");
+        } catch (IOException e) {
+            throw CodecContext.parseError(e);
+        }
+        if (header == null || !header.isObject()) {
+            throw new ParseError("JWS header must be a JSON object.");
+        }
+        boolean unencoded = unencodedPayload(header);
+        if (unencoded != (detachedPayload != null)) {
+            throw new ParseError(unencoded
+                    ? "An unencoded (b64=false) JWS payload must be provided separately."
+                    : "A detached JWS payload requires an unencoded (b64=false) JWS.");
+        }
+        if (unencoded && secondDot != firstDot + 1) {
+            throw new ParseError("A JWS with a detached payload must have an empty payload part.");
+        }
+
+        String alg = text(header, "alg");
+        if (!algWhitelist.contains(alg)) {
+            throw new ParseError("JWS algorithm " + alg + " is not permitted.");
+        }
+        return new CompactJws(jwsSer, header, alg, text(header, "kid"), firstDot, secondDot, detachedPayload);
+    }
+
+    /**
+     * @return the JSON object holding the JWT claims and the vc or vp claim. That is the payload where
+     * there is one and, for credentials signed with {@link JwsLayout#HEADER}, the protected header.
+     */
+    public JsonNode getClaims() throws ParseError {
+        JsonNode parsed = claims;
+        if (parsed == null) {
+            parsed = parseClaims();
+            claims = parsed;
+        }
+        return parsed;
+    }
+
+    private JsonNode parseClaims() throws ParseError {
+        if (detachedPayload == null && payloadEnd == headerEnd + 1) {
+            return header;
+        }
+        JsonNode payload;
+        try {
+            byte[] payloadBytes = detachedPayload != null
+                    ? detachedPayload
+                    : Base64.getUrlDecoder().decode(serialization.substring(headerEnd + 1, payloadEnd));
+            payload = CodecContext.DEFAULT.getObjectMapper().readTree(payloadBytes);
+        } catch (IllegalArgumentException e) {
+            throw new ParseError("JWS payload is not valid base64url.");
+        } catch (IOException e) {
+            throw CodecContext.parseError(e);
+        }
+        if (payload == null || !payload.isObject()) {
+            throw new ParseError("JWS payload must be a JSON object.");
+        }
+        return payload;
+    }
+
+    /**
+     * RFC 7797 b64 is the only critical header parameter understood, and it must be listed in crit.
+     */
+    private static boolean unencodedPayload(JsonNode header) throws ParseError {
+        JsonNode crit = header.get("crit");
+        JsonNode b64 = header.get("b64");
+        if (crit != null && !(crit.isArray() && crit.size() == 1 && "b64".equals(crit.get(0).asText()) && b64 != null)) {
+            throw new ParseError("Unrecognized critical JWS header parameters: " + crit);
+        }
+        if (b64 == null) {
+            return false;
+        }
+        if (!b64.isBoolean() || crit == null) {
+            throw new ParseError("JWS b64 header must be a boolean listed in crit.");
+        }
+        return !b64.booleanValue();
+    }
+
+    public void verifySignature(PublicKey publicKey) throws InvalidSignature {
+        long start = Metrics.start();
+        try {
+            verify(publicKey);
+            Metrics.record(Stage.SIGNATURE_VERIFICATION, start, signingInputLength, null);
+        } catch (InvalidSignature | RuntimeException e) {
+            Metrics.record(Stage.SIGNATURE_VERIFICATION, start, signingInputLength, e);
+            throw e;
+        }
+    }
+
+    private void verify(PublicKey publicKey) throws InvalidSignature {
+        try {
+            byte[] signature = Base64.getUrlDecoder().decode(serialization.substring(payloadEnd + 1));
+            byte[] signingInput = signingInput();
+            JsonWebSignatureAlgorithm algorithm = algorithm(alg);
+            algorithm.validateVerificationKey(publicKey);
+            if (!algorithm.verifySignature(signature, publicKey, signingInput, providerContext)) {
+                throw new InvalidSignature();
+            }
+        } catch (IllegalArgumentException | JoseException e) {
+            throw new InvalidSignature();
+        }
+    }
+
+    /**
+     * @return the JWS algorithm from jose4j, or {@link EdDsaAlgorithm} for EdDSA.
+     */
+    static JsonWebSignatureAlgorithm algorithm(String alg) throws JoseException {
+        if (EdDsaAlgorithm.EDDSA.equals(alg)) {
+            return EdDsaAlgorithm.INSTANCE;
+        }
+        return AlgorithmFactoryFactory.getInstance().getJwsAlgorithmFactory().getAlgorithm(alg);
+    }
+
+    private byte[] signingInput() {
+        if (detachedPayload == null) {
+            return serialization.substring(0, payloadEnd).getBytes(US_ASCII);
+        }
+        byte[] signingInput = new byte[signingInputLength];
+        for (int i = 0; i <= headerEnd; i++) {
+            signingInput[i] = (byte) serialization.charAt(i);
+        }
+        System.arraycopy(detachedPayload, 0, signingInput, headerEnd + 1, detachedPayload.length);
+        return signingInput;
+    }
+
+    private static String text(JsonNode header, String field) throws ParseError {
+        JsonNode value = header.get(field);
+        if (value == null || !value.isTextual()) {
+            throw new ParseError("JWS header must contain a string " + field + ".");
+        }
+        return value.asText();
+    }
+}
@@ -0,0 +1,41 @@
+package net.jtownson.odysseyj;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.net.URI;
+import java.util.Optional;
+
+/**
+ * The credentialStatus of a {@link VC}. For status list entries (BitstringStatusListEntry or
+ * StatusList2021Entry) the credential's status is the bit at statusListIndex of the list published
+ * in statusListCredential.
+ */
+@Data
+@Builder
+public class CredentialStatus {
+    public static final String BITSTRING_STATUS_LIST_ENTRY = "BitstringStatusListEntry";
+    public static final String STATUS_LIST_2021_ENTRY = "StatusList2021Entry";
+
+    private final URI id;
+    private final String type;
+    private final String statusPurpose;
+    private final Long statusListIndex;
+    private final URI statusListCredential;
+
+    public Optional<String> getStatusPurpose() {
+        return Optional.ofNullable(statusPurpose);
+    }
+
+    public Optional<Long> getStatusListIndex() {
+        return Optional.ofNullable(statusListIndex);
+    }
+
+    public Optional<URI> getStatusListCredential() {
+        return Optional.ofNullable(statusListCredential);
+    }
+
+    public boolean isStatusListEntry() {
+        return BITSTRING_STATUS_LIST_ENTRY.equals(type) || STATUS_LIST_2021_ENTRY.equals(type);
+    }
+}
@@ -0,0 +1,409 @@
+package net.jtownson.odysseyj;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import lombok.Builder;
+import lombok.SneakyThrows;
+
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Holds credentials serialized in shared arenas, indexed by id, issuer, subject id and expiry.
+ * Reads may run concurrently with each other but not with writes.
+ */
+public class CredentialStore {
+
+    private static final int DEFAULT_ARENA_SIZE = 16 * 1024 * 1024;
+    private static final Duration DEFAULT_EXPIRY_BUCKET = Duration.ofHours(1);
+    private static final int FREE = -1;
+    private static final long NO_EXPIRY = Long.MAX_VALUE;
+    private static final byte[] NO_ID = new byte[0];
+
+    private final CodecContext codec;
+    private final int arenaSize;
+    private final boolean offHeap;
+    private final long expiryBucketSeconds;
+    private final Clock clock;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final List<ByteBuffer> arenas = new ArrayList<>();
+    private ByteBuffer current;
+    private long arenaBytes;
+    private long liveBytes;
+
+    private long[] locations = new long[0];
+    private int[] lengths = new int[0];
+    private int[] idLengths = new int[0];
+    private long[] expiries = new long[0];
+    private int slots;
+    private int size;
+    private int[] freeSlots = new int[0];
+    private int freeCount;
+
+    private final HashIndex byId = new HashIndex();
+    private final HashIndex byIssuer = new HashIndex();
+    private final HashIndex bySubject = new HashIndex();
+    private final HashIndex byExpiryBucket = new HashIndex();
+
+    @Builder
+    private CredentialStore(CodecContext codec, Integer arenaSize, Boolean offHeap, Duration expiryBucket, Clock clock) {
+        this.codec = codec == null ? CodecContext.CBOR : codec;
+        this.arenaSize = arenaSize == null ? DEFAULT_ARENA_SIZE : arenaSize;
+        this.offHeap = offHeap != null && offHeap;
+        this.expiryBucketSeconds = (expiryBucket == null ? DEFAULT_EXPIRY_BUCKET : expiryBucket).getSeconds();
+        this.clock = clock == null ? Clock.systemUTC() : clock;
+        if (this.arenaSize < 1024) {
+            throw new IllegalArgumentException("arenaSize must be at least 1024 bytes. Got " + arenaSize);
+        }
+        if (this.expiryBucketSeconds < 1) {
+            throw new IllegalArgumentException("expiryBucket must be at least a second. Got " + expiryBucket);
+        }
+    }
+
+    public static CredentialStore create() {
+        return builder().build();
+    }
+
+    /**
+     * Stores the credential, replacing any stored credential with the same id.
+     */
+    public void put(VC vc) {
+        byte[] encoded = codec.encode(vc);
+        byte[] idBytes = vc.getId().map(value -> value.getBytes(UTF_8)).orElse(NO_ID);
+        long expiresAt = vc.getExpirationDate().map(exp -> exp.toEpochSecond(ZoneOffset.UTC)).orElse(NO_EXPIRY);
+        lock.writeLock().lock();
+        try {
+            if (vc.getId().isPresent()) {
+                int existing = find(vc.getId().get());
+                if (existing != FREE) {
+                    remove(existing);
+                }
+            }
+            int slot = allocateSlot();
+            locations[slot] = reserve(idBytes.length + encoded.length);
+            current.put(idBytes).put(encoded);
+            idLengths[slot] = idBytes.length;
+            lengths[slot] = encoded.length;
+            expiries[slot] = expiresAt;
+            liveBytes += idBytes.length + encoded.length;
+            size++;
+
+            vc.getId().ifPresent(id -> byId.add(hash(id), slot));
+            byIssuer.add(hash(vc.getIssuer().toString()), slot);
+            // Index each distinct subject hash once, so a slot is never listed twice under the same hash.
+            long[] subjectHashes = new long[vc.getCredentialSubjects().size()];
+            int subjects = 0;
+            for (ObjectNode subject : vc.getCredentialSubjects()) {
+                JsonNode subjectId = subject.get("id");
+                if (subjectId != null && subjectId.isTextual()) {
+                    long subjectHash = hash(subjectId.asText());
+                    if (indexOf(subjectHashes, subjects, subjectHash) < 0) {
+                        subjectHashes[subjects++] = subjectHash;
+                        bySubject.add(subjectHash, slot);
+                    }
+                }
+            }
+            if (expiresAt != NO_EXPIRY) {
+                byExpiryBucket.add(Math.floorDiv(expiresAt, expiryBucketSeconds), slot);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public Optional<VC> get(String id) {
+        lock.readLock().lock();
+        try {
+            int slot = find(id);
+            return slot == FREE ? Optional.empty() : Optional.of(decode(slot));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<VC> findByIssuer(URI issuer) {
+        String value = issuer.toString();
+        List<VC> found = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            byIssuer.forEach(hash(value), slot -> {
+                VC vc = decode(slot);
+                if (vc.getIssuer().toString().equals(value)) {
+                    found.add(vc);
+                }
+            });
+        } finally {
+            lock.readLock().unlock();
+        }
+        return found;
+    }
+
+    public List<VC> findBySubject(String subjectId) {
+        List<VC> found = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            bySubject.forEach(hash(subjectId), slot -> {
+                VC vc = decode(slot);
+                if (hasSubject(vc, subjectId)) {
+                    found.add(vc);
+                }
+            });
+        } finally {
+            lock.readLock().unlock();
+        }
+        return found;
+    }
+
+    public boolean remove(String id) {
+        lock.writeLock().lock();
+        try {
+            int slot = find(id);
+            if (slot == FREE) {
+                return false;
+            }
+            remove(slot);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes every credential whose expirationDate is at or before the store's clock.
+     *
+     * @return the number removed.
+     */
+    public int removeExpired() {
+        return removeExpired(clock.instant());
+    }
+
+    public int removeExpired(Instant now) {
+        long nowSeconds = now.getEpochSecond();
+        long dueBucket = Math.floorDiv(nowSeconds, expiryBucketSeconds);
+        int removed = 0;
+        lock.writeLock().lock();
+        try {
+            for (long bucket : byExpiryBucket.keys()) {
+                if (bucket <= dueBucket) {
+                    int[] candidates = slots(byExpiryBucket, bucket);
+                    for (int slot : candidates) {
+                        if (expiries[slot] <= nowSeconds) {
+                            remove(slot);
+                            removed++;
+                        }
+                    }
+                }
+            }
+            if (liveBytes < (arenaBytes - remaining()) / 2) {
+                compactArenas();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return removed;
+    }
+
+    /**
+     * Copies the live credentials into fresh arenas, releasing the space of removed ones.
+     */
+    public void compact() {
+        lock.writeLock().lock();
+        try {
+            compactArenas();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the serialized size of the stored credentials.
+     */
+    public long getStoredBytes() {
+        lock.readLock().lock();
+        try {
+            return liveBytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the capacity of the arenas holding them, including space not yet used or reclaimed.
+     */
+    public long getArenaBytes() {
+        lock.readLock().lock();
+        try {
+            return arenaBytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Each record starts with the credential's id, so candidates are checked without decoding them.
+     */
+    private int find(String id) {
+        byte[] idBytes = id.getBytes(UTF_8);
+        int[] found = {FREE};
+        byId.forEach(hash(id), slot -> {
+            if (found[0] == FREE && hasId(slot, idBytes)) {
+                found[0] = slot;
+            }
+        });
+        return found[0];
+    }
+
+    private boolean hasId(int slot, byte[] id) {
+        if (idLengths[slot] != id.length) {
+            return false;
+        }
+        long location = locations[slot];
+        ByteBuffer arena = arenas.get((int) (location >>> 32));
+        for (int i = 0; i < id.length; i++) {
+            if (arena.get((int) location + i) != id[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @SneakyThrows
+    private VC decode(int slot) {
+        long location = locations[slot];
+        ByteBuffer record = arenas.get((int) (location >>> 32)).duplicate();
+        record.position((int) location + idLengths[slot]);
+        record.limit((int) location + idLengths[slot] + lengths[slot]);
+        return codec.decodeVc(record);
+    }
+
+    private void remove(int slot) {
+        byId.removeSlot(slot);
+        byIssuer.removeSlot(slot);
+        bySubject.removeSlot(slot);
+        byExpiryBucket.removeSlot(slot);
+        liveBytes -= idLengths[slot] + lengths[slot];
+        lengths[slot] = FREE;
+        size--;
+        if (freeCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeCount + (freeCount >> 1) + 16);
+        }
+        freeSlots[freeCount++] = slot;
+    }
+
+    private int allocateSlot() {
+        if (freeCount > 0) {
+            return freeSlots[--freeCount];
+        }
+        if (slots == locations.length) {
+            int length = slots + (slots >> 1) + 16;
+            locations = Arrays.copyOf(locations, length);
+            lengths = Arrays.copyOf(lengths, length);
+            idLengths = Arrays.copyOf(idLengths, length);
+            expiries = Arrays.copyOf(expiries, length);
+        }
+        return slots++;
+    }
+
+    /**
+     * @return the location of length bytes at the position of {@code current}, which the caller fills.
+     */
+    private long reserve(int length) {
+        if (current == null || current.remaining() < length) {
+            current = allocate(Math.max(arenaSize, length));
+            arenas.add(current);
+        }
+        return ((long) (arenas.size() - 1) << 32) | current.position();
+    }
+
+    private ByteBuffer allocate(int capacity) {
+        arenaBytes += capacity;
+        return offHeap ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+    }
+
+    private long remaining() {
+        return current == null ? 0 : current.remaining();
+    }
+
+    private void compactArenas() {
+        List<ByteBuffer> old = new ArrayList<>(arenas);
+        arenas.clear();
+        current = null;
+        arenaBytes = 0;
+        byte[] record = new byte[0];
+        for (int slot = 0; slot < slots; slot++) {
+            if (lengths[slot] != FREE) {
+                long location = locations[slot];
+                ByteBuffer arena = old.get((int) (location >>> 32)).duplicate();
+                arena.position((int) location);
+                if (record.length != idLengths[slot] + lengths[slot]) {
+                    record = new byte[idLengths[slot] + lengths[slot]];
+                }
+                arena.get(record);
+                locations[slot] = reserve(record.length);
+                current.put(record);
+            }
+        }
+    }
+
+    private static int[] slots(HashIndex index, long key) {
+        int[][] result = {new int[8]};
+        int[] count = {0};
+        index.forEach(key, slot -> {
+            if (count[0] == result[0].length) {
+                result[0] = Arrays.copyOf(result[0], count[0] * 2);
+            }
+            result[0][count[0]++] = slot;
+        });
+        return Arrays.copyOf(result[0], count[0]);
+    }
+
+    private static boolean hasSubject(VC vc, String subjectId) {
+        for (ObjectNode subject : vc.getCredentialSubjects()) {
+            JsonNode id = subject.get("id");
+            if (id != null && subjectId.equals(id.asText())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static long hash(String value) {
+        long h = 0xCBF29CE484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            h ^= value.charAt(i);
+            h *= 0x100000001B3L;
+        }
+        return h;
+    }
+
+    private static int indexOf(long[] values, int length, long value) {
+        for (int i = 0; i < length; i++) {
+            if (values[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
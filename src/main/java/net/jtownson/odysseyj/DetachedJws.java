@@ -0,0 +1,14 @@
+package net.jtownson.odysseyj;
+
+import lombok.Data;
+
+/**
+ * A JWS serialized as header..signature over an unencoded (RFC 7797, b64=false) payload, and that payload.
+ * The payload is the JWT claims set of {@link JwsLayout#PAYLOAD} as plain JSON, a third smaller than the
+ * base64url form, and both must be sent to the verifier.
+ */
+@Data
+public class DetachedJws {
+    private final String jws;
+    private final byte[] payload;
+}
@@ -0,0 +1,176 @@
+package net.jtownson.odysseyj;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.jose4j.jca.ProviderContext;
+import org.jose4j.jwa.AlgorithmInfo;
+import org.jose4j.jws.JsonWebSignatureAlgorithm;
+import org.jose4j.keys.KeyPersuasion;
+import org.jose4j.lang.InvalidKeyException;
+import org.jose4j.lang.JoseException;
+
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.NoSuchAlgorithmException;
+import java.security.PrivateKey;
+import java.security.Provider;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.security.spec.InvalidKeySpecException;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Base64;
+
+/**
+ * The RFC 8037 EdDSA algorithm over Ed25519, from the JDK (Java 15+) or else BouncyCastle if present.
+ */
+final class EdDsaAlgorithm extends AlgorithmInfo implements JsonWebSignatureAlgorithm {
+
+    static final String EDDSA = "EdDSA";
+    static final String ED25519 = "Ed25519";
+    static final EdDsaAlgorithm INSTANCE = new EdDsaAlgorithm();
+
+    private static final String BOUNCY_CASTLE = "org.bouncycastle.jce.provider.BouncyCastleProvider";
+
+    /**
+     * The DER SubjectPublicKeyInfo of an Ed25519 key (RFC 8410) up to its 32 raw key bytes.
+     */
+    private static final byte[] SPKI_PREFIX = {0x30, 0x2a, 0x30, 0x05, 0x06, 0x03, 0x2b, 0x65, 0x70, 0x03, 0x21, 0x00};
+    private static final byte[] ED25519_OID = {0x06, 0x03, 0x2b, 0x65, 0x70};
+
+    private static final Provider PROVIDER = findProvider();
+
+    private EdDsaAlgorithm() {
+        setAlgorithmIdentifier(EDDSA);
+        setJavaAlgorithm(ED25519);
+        setKeyPersuasion(KeyPersuasion.ASYMMETRIC);
+        setKeyType("OKP");
+    }
+
+    static Signature newSignature() throws NoSuchAlgorithmException {
+        return Signature.getInstance(ED25519, provider());
+    }
+
+    static KeyFactory keyFactory() throws NoSuchAlgorithmException {
+        return KeyFactory.getInstance(ED25519, provider());
+    }
+
+    /**
+     * @return the public key of an OKP JWK with crv Ed25519.
+     */
+    static PublicKey fromJwk(JsonNode jwk) throws InvalidKeySpecException {
+        if (!ED25519.equals(jwk.path("crv").asText())) {
+            throw new InvalidKeySpecException("Unsupported OKP curve " + jwk.get("crv") + ". Only Ed25519 is supported.");
+        }
+        byte[] x;
+        try {
+            x = Base64.getUrlDecoder().decode(jwk.path("x").asText());
+        } catch (IllegalArgumentException e) {
+            throw new InvalidKeySpecException("Ed25519 JWK x is not valid base64url.");
+        }
+        if (x.length != 32) {
+            throw new InvalidKeySpecException("Ed25519 JWK x must be 32 bytes. Got " + x.length);
+        }
+        byte[] spki = new byte[SPKI_PREFIX.length + x.length];
+        System.arraycopy(SPKI_PREFIX, 0, spki, 0, SPKI_PREFIX.length);
+        System.arraycopy(x, 0, spki, SPKI_PREFIX.length, x.length);
+        try {
+            return keyFactory().generatePublic(new X509EncodedKeySpec(spki));
+        } catch (NoSuchAlgorithmException e) {
+            throw new InvalidKeySpecException(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public boolean verifySignature(byte[] signatureBytes, Key key, byte[] securedInputBytes, ProviderContext providerContext)
+            throws JoseException {
+        try {
+            Signature signature = newSignature();
+            signature.initVerify((PublicKey) key);
+            signature.update(securedInputBytes);
+            return signature.verify(signatureBytes);
+        } catch (GeneralSecurityException e) {
+            throw new JoseException("Unable to verify EdDSA signature: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public byte[] sign(Key key, byte[] securedInputBytes, ProviderContext providerContext) throws JoseException {
+        try {
+            Signature signature = newSignature();
+            signature.initSign((PrivateKey) key);
+            signature.update(securedInputBytes);
+            return signature.sign();
+        } catch (GeneralSecurityException e) {
+            throw new JoseException("Unable to create EdDSA signature: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void validateSigningKey(Key key) throws InvalidKeyException {
+        if (!(key instanceof PrivateKey) || !isEd25519(key)) {
+            throw new InvalidKeyException("EdDSA requires an Ed25519 private key. Got " + describe(key));
+        }
+    }
+
+    @Override
+    public void validateVerificationKey(Key key) throws InvalidKeyException {
+        if (!(key instanceof PublicKey) || !isEd25519(key)) {
+            throw new InvalidKeyException("EdDSA requires an Ed25519 public key. Got " + describe(key));
+        }
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return PROVIDER != null;
+    }
+
+    /**
+     * JDK keys report the algorithm EdDSA for both Ed25519 and Ed448, so the curve is read from the encoding.
+     */
+    private static boolean isEd25519(Key key) {
+        if (ED25519.equals(key.getAlgorithm())) {
+            return true;
+        }
+        byte[] encoded = key.getEncoded();
+        if (!EDDSA.equals(key.getAlgorithm()) || encoded == null) {
+            return false;
+        }
+        for (int i = 0; i + ED25519_OID.length <= Math.min(encoded.length, 24); i++) {
+            int j = 0;
+            while (j < ED25519_OID.length && encoded[i + j] == ED25519_OID[j]) {
+                j++;
+            }
+            if (j == ED25519_OID.length) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String describe(Key key) {
+        return key == null ? "null" : key.getAlgorithm() + " " + key.getClass().getSimpleName();
+    }
+
+    private static Provider provider() throws NoSuchAlgorithmException {
+        if (PROVIDER == null) {
+            throw new NoSuchAlgorithmException(
+                    "Ed25519 requires Java 15 or later, or BouncyCastle (bcprov) on the classpath.");
+        }
+        return PROVIDER;
+    }
+
+    private static Provider findProvider() {
+        try {
+            return KeyFactory.getInstance(ED25519).getProvider();
+        } catch (NoSuchAlgorithmException e) {
+            // fall back to BouncyCastle
+        }
+        try {
+            Provider bouncyCastle = (Provider) Class.forName(BOUNCY_CASTLE).getConstructor().newInstance();
+            KeyFactory.getInstance(ED25519, bouncyCastle);
+            return bouncyCastle;
+        } catch (ReflectiveOperationException | NoSuchAlgorithmException | LinkageError e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package net.jtownson.odysseyj;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * A multimap from long keys to int slots held in primitive arrays, for {@link CredentialStore}.
+ * Keys live in an open-addressing table pointing at the head of a doubly linked list of entries, one
+ * entry per (key, slot) pair. The entries of each slot are also chained together so that a slot can
+ * be removed from every key it was added under in time proportional to its own entries. Not thread-safe.
+ */
+final class HashIndex {
+
+    private static final int NONE = -1;
+
+    private long[] keys;
+    private int[] heads;
+    private int mask;
+    private int distinct;
+
+    private long[] entryKey;
+    private int[] entrySlot;
+    private int[] next;
+    private int[] prev;
+    private int[] sibling;
+    private int entries;
+    private int freeEntries = NONE;
+
+    private int[] slotEntry = new int[0];
+
+    HashIndex() {
+        keys = new long[16];
+        heads = filled(16);
+        mask = 15;
+        entryKey = new long[16];
+        entrySlot = new int[16];
+        next = new int[16];
+        prev = new int[16];
+        sibling = new int[16];
+    }
+
+    void add(long key, int slot) {
+        int e = newEntry();
+        entryKey[e] = key;
+        entrySlot[e] = slot;
+
+        int pos = find(key);
+        if (pos < 0) {
+            pos = -1 - pos;
+            keys[pos] = key;
+            heads[pos] = e;
+            next[e] = NONE;
+            if (++distinct * 2 > keys.length) {
+                rehash(keys.length * 2);
+            }
+        } else {
+            next[e] = heads[pos];
+            prev[heads[pos]] = e;
+            heads[pos] = e;
+        }
+        prev[e] = NONE;
+
+        if (slot >= slotEntry.length) {
+            int length = Math.max(slot + 1, slotEntry.length + (slotEntry.length >> 1) + 16);
+            int from = slotEntry.length;
+            slotEntry = Arrays.copyOf(slotEntry, length);
+            Arrays.fill(slotEntry, from, length, NONE);
+        }
+        sibling[e] = slotEntry[slot];
+        slotEntry[slot] = e;
+    }
+
+    void removeSlot(int slot) {
+        if (slot >= slotEntry.length) {
+            return;
+        }
+        int e = slotEntry[slot];
+        while (e != NONE) {
+            int s = sibling[e];
+            unlink(e);
+            next[e] = freeEntries;
+            freeEntries = e;
+            e = s;
+        }
+        slotEntry[slot] = NONE;
+    }
+
+    void forEach(long key, IntConsumer slots) {
+        int pos = find(key);
+        if (pos >= 0) {
+            for (int e = heads[pos]; e != NONE; e = next[e]) {
+                slots.accept(entrySlot[e]);
+            }
+        }
+    }
+
+    /**
+     * @return the distinct keys, in no particular order.
+     */
+    long[] keys() {
+        long[] result = new long[distinct];
+        int n = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (heads[i] != NONE) {
+                result[n++] = keys[i];
+            }
+        }
+        return result;
+    }
+
+    private int newEntry() {
+        if (freeEntries != NONE) {
+            int e = freeEntries;
+            freeEntries = next[e];
+            return e;
+        }
+        if (entries == entryKey.length) {
+            int length = entries + (entries >> 1) + 16;
+            entryKey = Arrays.copyOf(entryKey, length);
+            entrySlot = Arrays.copyOf(entrySlot, length);
+            next = Arrays.copyOf(next, length);
+            prev = Arrays.copyOf(prev, length);
+            sibling = Arrays.copyOf(sibling, length);
+        }
+        return entries++;
+    }
+
+    private void unlink(int e) {
+        if (prev[e] != NONE) {
+            next[prev[e]] = next[e];
+        } else {
+            int pos = find(entryKey[e]);
+            heads[pos] = next[e];
+            if (next[e] == NONE) {
+                delete(pos);
+            }
+        }
+        if (next[e] != NONE) {
+            prev[next[e]] = prev[e];
+        }
+    }
+
+    /**
+     * @return the key's position, or -1 - the free position where it would be inserted.
+     */
+    private int find(long key) {
+        int i = hash(key) & mask;
+        while (heads[i] != NONE) {
+            if (keys[i] == key) {
+                return i;
+            }
+            i = (i + 1) & mask;
+        }
+        return -1 - i;
+    }
+
+    /**
+     * Removes the key at i, shifting later keys of the same probe run back so that lookups still find them.
+     */
+    private void delete(int i) {
+        int j = i;
+        while (true) {
+            j = (j + 1) & mask;
+            if (heads[j] == NONE) {
+                break;
+            }
+            int home = hash(keys[j]) & mask;
+            boolean reachable = i <= j ? (i < home && home <= j) : (i < home || home <= j);
+            if (!reachable) {
+                keys[i] = keys[j];
+                heads[i] = heads[j];
+                i = j;
+            }
+        }
+        heads[i] = NONE;
+        distinct--;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldHeads = heads;
+        keys = new long[capacity];
+        heads = filled(capacity);
+        mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldHeads[i] != NONE) {
+                int pos = -1 - find(oldKeys[i]);
+                keys[pos] = oldKeys[i];
+                heads[pos] = oldHeads[i];
+            }
+        }
+    }
+
+    private static int[] filled(int length) {
+        int[] array = new int[length];
+        Arrays.fill(array, NONE);
+        return array;
+    }
+
+    static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
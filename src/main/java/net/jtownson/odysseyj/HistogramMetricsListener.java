@@ -0,0 +1,100 @@
+package net.jtownson.odysseyj;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * An in-process {@link MetricsListener} that keeps a latency histogram, byte count and per-outcome
+ * counts for each stage. {@link #export()} flattens these into named values suitable for a metrics system.
+ */
+public class HistogramMetricsListener implements MetricsListener {
+
+    private final Map<Stage, StageMetrics> stages = new EnumMap<>(Stage.class);
+
+    public HistogramMetricsListener() {
+        for (Stage stage : Stage.values()) {
+            stages.put(stage, new StageMetrics());
+        }
+    }
+
+    @Override
+    public void record(Stage stage, long nanos, long bytes, Outcome outcome) {
+        StageMetrics metrics = stages.get(stage);
+        metrics.latency.record(nanos);
+        if (bytes > 0) {
+            metrics.bytes.add(bytes);
+        }
+        metrics.outcomes[outcome.ordinal()].increment();
+    }
+
+    public LatencyHistogram getLatency(Stage stage) {
+        return stages.get(stage).latency;
+    }
+
+    public long getBytes(Stage stage) {
+        return stages.get(stage).bytes.sum();
+    }
+
+    public long getCount(Stage stage, Outcome outcome) {
+        return stages.get(stage).outcomes[outcome.ordinal()].sum();
+    }
+
+    /**
+     * Returns values keyed as {@code <stage>.<metric>}, e.g. {@code key_resolution.p99_us} or
+     * {@code signature_verification.invalid_signature}. Stages that have recorded nothing are omitted.
+     */
+    public Map<String, Number> export() {
+        Map<String, Number> values = new LinkedHashMap<>();
+        for (Map.Entry<Stage, StageMetrics> entry : stages.entrySet()) {
+            LatencyHistogram latency = entry.getValue().latency;
+            long count = latency.getCount();
+            if (count == 0) {
+                continue;
+            }
+            String prefix = entry.getKey().name().toLowerCase() + ".";
+            values.put(prefix + "count", count);
+            values.put(prefix + "p50_us", latency.getValueAtPercentile(50) / 1000.0);
+            values.put(prefix + "p99_us", latency.getValueAtPercentile(99) / 1000.0);
+            values.put(prefix + "max_us", latency.getMax() / 1000.0);
+            values.put(prefix + "bytes", entry.getValue().bytes.sum());
+            for (Outcome outcome : Outcome.values()) {
+                long n = entry.getValue().outcomes[outcome.ordinal()].sum();
+                if (n > 0) {
+                    values.put(prefix + outcome.name().toLowerCase(), n);
+                }
+            }
+        }
+        return values;
+    }
+
+    public void reset() {
+        for (StageMetrics metrics : stages.values()) {
+            metrics.latency.reset();
+            metrics.bytes.reset();
+            for (LongAdder outcome : metrics.outcomes) {
+                outcome.reset();
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        export().forEach((name, value) -> sb.append(name).append('=').append(value).append('\n'));
+        return sb.toString();
+    }
+
+    private static class StageMetrics {
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder bytes = new LongAdder();
+        private final LongAdder[] outcomes = new LongAdder[Outcome.values().length];
+
+        private StageMetrics() {
+            for (int i = 0; i < outcomes.length; i++) {
+                outcomes[i] = new LongAdder();
+            }
+        }
+    }
+}
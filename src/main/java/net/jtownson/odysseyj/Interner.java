@@ -0,0 +1,70 @@
+package net.jtownson.odysseyj;
+
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A bounded table of canonical URI and String values that decoded credentials share.
+ */
+public class Interner {
+
+    static final URI V1 = URI.create(VCJsonCodec.v1);
+
+    private static final int DEFAULT_MAXIMUM_SIZE = 4096;
+
+    public static final Interner SHARED = new Interner(DEFAULT_MAXIMUM_SIZE);
+
+    private final int maximumSize;
+    private final Map<String, URI> uris = new ConcurrentHashMap<>();
+    private final Map<String, String> strings = new ConcurrentHashMap<>();
+
+    public Interner(int maximumSize) {
+        if (maximumSize < 1) {
+            throw new IllegalArgumentException("maximumSize must be at least 1. Got " + maximumSize);
+        }
+        this.maximumSize = maximumSize;
+    }
+
+    /**
+     * @return the shared URI for the value, or null if it is not an absolute URI.
+     */
+    public URI absoluteUri(String value) {
+        URI uri = uris.get(value);
+        if (uri == null) {
+            if (VCJsonCodec.v1.equals(value)) {
+                return V1;
+            }
+            uri = URICreator.absoluteUri(value);
+            if (uri != null) {
+                uri = putIfAbsent(uris, value, uri);
+            }
+        }
+        return uri;
+    }
+
+    public String string(String value) {
+        String canonical = strings.get(value);
+        if (canonical == null) {
+            canonical = putIfAbsent(strings, value, value);
+        }
+        return canonical;
+    }
+
+    public int size() {
+        return uris.size() + strings.size();
+    }
+
+    public void clear() {
+        uris.clear();
+        strings.clear();
+    }
+
+    private <V> V putIfAbsent(Map<String, V> table, String key, V value) {
+        if (table.size() >= maximumSize) {
+            table.clear();
+        }
+        V previous = table.putIfAbsent(key, value);
+        return previous == null ? value : previous;
+    }
+}
@@ -2,6 +2,6 @@ package net.jtownson.odysseyj;
 
 public class InvalidSignature extends VerificationError {
     public InvalidSignature() {
-        super("Invalid signature detected");
+        super("Invalid signature detected", false);
     }
 }
@@ -0,0 +1,268 @@
+package net.jtownson.odysseyj;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import net.jtownson.odysseyj.VC.VCBuilder;
+import net.jtownson.odysseyj.VP.VPBuilder;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.function.Consumer;
+
+import static net.jtownson.odysseyj.URICreator.absoluteUri;
+import static net.jtownson.odysseyj.VCJsonCodec.contextError;
+import static net.jtownson.odysseyj.VCJsonCodec.parseDate;
+import static net.jtownson.odysseyj.VCJsonCodec.typeError;
+import static net.jtownson.odysseyj.VCJsonCodec.v1;
+
+/**
+ * Decodes credentials and presentations directly from a {@link JsonParser} token stream,
+ * validating fields as they are read. Only credentialSubject objects are buffered as trees.
+ */
+public class JsonStreamDecoder {
+
+    public static VC decodeVc(JsonParser parser) throws ParseError, IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new ParseError("vc must be a JSON object.");
+        }
+        return readVc(parser);
+    }
+
+    public static VP decodeVp(JsonParser parser) throws ParseError, IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new ParseError("vp must be a JSON object.");
+        }
+        VPBuilder builder = VP.builder();
+        boolean type = false, context = false, verifiableCredential = false, proof = false;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "id":
+                    readId(parser, builder::id);
+                    break;
+                case "type":
+                    readType(parser, builder::type, "VerifiablePresentation");
+                    type = true;
+                    break;
+                case "@context":
+                    readContext(parser, builder::context);
+                    context = true;
+                    break;
+                case "holder":
+                    URI holder = value == JsonToken.VALUE_STRING ? absoluteUri(parser.getText()) : null;
+                    if (holder == null) {
+                        throw new ParseError("holder must be a valid URI");
+                    }
+                    builder.holder(holder);
+                    break;
+                case "verifiableCredential":
+                    readVerifiableCredential(parser, builder);
+                    verifiableCredential = true;
+                    break;
+                case "proof":
+                    parser.skipChildren();
+                    proof = true;
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+
+        if (!type) {
+            throw new ParseError(typeError("VerifiablePresentation"));
+        }
+        if (!context) {
+            throw new ParseError(contextError());
+        }
+        if (!verifiableCredential) {
+            throw new ParseError("verifiableCredential must be defined.");
+        }
+        if (!proof) {
+            throw new ParseError("Proof node must be defined (questionable w3c testcase).");
+        }
+        return builder.build();
+    }
+
+    private static void readVerifiableCredential(JsonParser parser, VPBuilder builder) throws ParseError, IOException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.START_OBJECT) {
+            builder.verifiableCredential(readVc(parser));
+        } else if (token == JsonToken.START_ARRAY) {
+            JsonToken element;
+            while ((element = parser.nextToken()) != JsonToken.END_ARRAY) {
+                if (element != JsonToken.START_OBJECT) {
+                    throw new ParseError("Invalid object type for verifiableCredential element: " + element);
+                }
+                builder.verifiableCredential(readVc(parser));
+            }
+        } else {
+            parser.skipChildren();
+        }
+    }
+
+    private static VC readVc(JsonParser parser) throws ParseError, IOException {
+        return readVc(parser, JsonStreamDecoder::readCredentialSubject);
+    }
+
+    interface SubjectReader {
+        void read(JsonParser parser, VCBuilder builder) throws ParseError, IOException;
+    }
+
+    static VC readVc(JsonParser parser, SubjectReader subjectReader) throws ParseError, IOException {
+        VCBuilder builder = VC.builder();
+        boolean type = false, context = false, issuer = false, issuanceDate = false, credentialSubject = false;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "id":
+                    readId(parser, builder::id);
+                    break;
+                case "type":
+                    readType(parser, builder::type, "VerifiableCredential");
+                    type = true;
+                    break;
+                case "@context":
+                    readContext(parser, builder::context);
+                    context = true;
+                    break;
+                case "issuer":
+                    if (value != JsonToken.VALUE_STRING) {
+                        throw new ParseError("issuer must be a string.");
+                    }
+                    URI uri = Interner.SHARED.absoluteUri(parser.getText());
+                    if (uri == null) {
+                        throw new ParseError("Issuer must a valid URI. Got " + parser.getText());
+                    }
+                    builder.issuer(uri);
+                    issuer = true;
+                    break;
+                case "issuanceDate":
+                    if (value != JsonToken.VALUE_STRING) {
+                        throw new ParseError("issuanceDate must be a string.");
+                    }
+                    builder.issuanceDate(parseDate("issuanceDate", parser.getText()));
+                    issuanceDate = true;
+                    break;
+                case "expirationDate":
+                    if (value != JsonToken.VALUE_STRING) {
+                        throw new ParseError("expirationDate must be a string.");
+                    }
+                    builder.expirationDate(parseDate("expirationDate", parser.getText()));
+                    break;
+                case "credentialSubject":
+                    subjectReader.read(parser, builder);
+                    credentialSubject = true;
+                    break;
+                case "credentialStatus":
+                    builder.credentialStatus(VCJsonCodec.decodeCredentialStatus(parser.readValueAsTree()));
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+
+        if (!type) {
+            throw new ParseError(typeError("VerifiableCredential"));
+        }
+        if (!context) {
+            throw new ParseError(contextError());
+        }
+        if (!issuer) {
+            throw new ParseError("issuer cannot be null");
+        }
+        if (!issuanceDate) {
+            throw new ParseError("issuanceDate cannot be null");
+        }
+        if (!credentialSubject) {
+            throw new ParseError("credentialSubject must be either an object or array of objects.");
+        }
+        return builder.build();
+    }
+
+    private static void readCredentialSubject(JsonParser parser, VCBuilder builder) throws ParseError, IOException {
+        readCredentialSubject(parser, builder::credentialSubject);
+    }
+
+    static void readCredentialSubject(JsonParser parser, Consumer<ObjectNode> subjects) throws ParseError, IOException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.START_OBJECT) {
+            subjects.accept(readObject(parser));
+        } else if (token == JsonToken.START_ARRAY) {
+            JsonToken element;
+            while ((element = parser.nextToken()) != JsonToken.END_ARRAY) {
+                if (element != JsonToken.START_OBJECT) {
+                    throw new ParseError("Invalid object type in credentialSubject: " + element);
+                }
+                subjects.accept(readObject(parser));
+            }
+        } else {
+            throw new ParseError("credentialSubject must be either an object or array of objects.");
+        }
+    }
+
+    private static ObjectNode readObject(JsonParser parser) throws IOException {
+        return parser.readValueAsTree();
+    }
+
+    private static void readId(JsonParser parser, Consumer<String> builder) throws ParseError, IOException {
+        if (parser.currentToken() != JsonToken.VALUE_STRING) {
+            throw new ParseError("value of id field must be a string.");
+        }
+        builder.accept(parser.getText());
+    }
+
+    private static void readType(JsonParser parser, Consumer<String> builder, String initialType) throws ParseError, IOException {
+        if (parser.currentToken() != JsonToken.START_ARRAY || parser.nextToken() != JsonToken.VALUE_STRING
+                || !initialType.equals(parser.getText())) {
+            throw new ParseError(typeError(initialType));
+        }
+        builder.accept(initialType);
+
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (token != JsonToken.VALUE_STRING) {
+                throw new ParseError(typeError(initialType));
+            }
+            builder.accept(Interner.SHARED.string(parser.getText()));
+        }
+    }
+
+    private static void readContext(JsonParser parser, Consumer<URI> builder) throws ParseError, IOException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.VALUE_STRING) {
+            if (!v1.equals(parser.getText())) {
+                throw new ParseError("Context string must be " + v1);
+            }
+            builder.accept(Interner.V1);
+        } else if (token == JsonToken.START_ARRAY) {
+            if (parser.nextToken() != JsonToken.VALUE_STRING || !v1.equals(parser.getText())) {
+                throw new ParseError(contextError());
+            }
+            builder.accept(Interner.V1);
+
+            int count = 1;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                count++;
+                if (token == JsonToken.VALUE_STRING) {
+                    URI uri = Interner.SHARED.absoluteUri(parser.getText());
+                    if (uri == null) {
+                        throw new ParseError(parser.getText() + " is not a valid URI");
+                    }
+                    builder.accept(uri);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            if (count == 1) {
+                throw new ParseError(contextError());
+            }
+        } else {
+            throw new ParseError(contextError());
+        }
+    }
+}
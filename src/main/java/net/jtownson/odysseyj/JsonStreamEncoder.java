@@ -0,0 +1,106 @@
+package net.jtownson.odysseyj;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.List;
+
+/**
+ * Writes credentials and presentations straight to a {@link JsonGenerator}, producing the same
+ * layout as {@link VCJsonCodec#encode(VC)} and {@link VPJsonCodec#encode(VP)} without building a tree.
+ */
+public class JsonStreamEncoder {
+
+    public static void writeVc(JsonGenerator gen, VC vc) throws IOException {
+        gen.writeStartObject();
+        writeContext(gen, vc.getContexts());
+        writeType(gen, vc.getTypes());
+        writeId(gen, vc.getId().orElse(null));
+        gen.writeStringField("issuer", vc.getIssuer().toString());
+        char[] date = new char[Rfc3339.MAX_LENGTH];
+        gen.writeFieldName("issuanceDate");
+        gen.writeString(date, 0, Rfc3339.format(vc.getIssuanceDate(), date));
+        if (vc.getExpirationDate().isPresent()) {
+            gen.writeFieldName("expirationDate");
+            gen.writeString(date, 0, Rfc3339.format(vc.getExpirationDate().get(), date));
+        }
+
+        List<ObjectNode> subjects = vc.getCredentialSubjects();
+        if (subjects.size() == 1) {
+            gen.writeFieldName("credentialSubject");
+            gen.writeTree(subjects.get(0));
+        } else if (subjects.size() > 1) {
+            gen.writeArrayFieldStart("credentialSubject");
+            for (ObjectNode subject : subjects) {
+                gen.writeTree(subject);
+            }
+            gen.writeEndArray();
+        }
+        if (vc.getCredentialStatus().isPresent()) {
+            writeCredentialStatus(gen, vc.getCredentialStatus().get());
+        }
+        gen.writeEndObject();
+    }
+
+    public static void writeVp(JsonGenerator gen, VP vp) throws IOException {
+        gen.writeStartObject();
+        writeContext(gen, vp.getContexts());
+        writeType(gen, vp.getTypes());
+        writeId(gen, vp.getId().orElse(null));
+        if (vp.getHolder().isPresent()) {
+            gen.writeStringField("holder", vp.getHolder().get().toString());
+        }
+        gen.writeArrayFieldStart("proof");
+        gen.writeEndArray();
+        gen.writeArrayFieldStart("verifiableCredential");
+        for (VC vc : vp.getVerifiableCredentials()) {
+            writeVc(gen, vc);
+        }
+        gen.writeEndArray();
+        gen.writeEndObject();
+    }
+
+    private static void writeCredentialStatus(JsonGenerator gen, CredentialStatus status) throws IOException {
+        gen.writeObjectFieldStart("credentialStatus");
+        gen.writeStringField("id", status.getId().toString());
+        gen.writeStringField("type", status.getType());
+        if (status.getStatusPurpose().isPresent()) {
+            gen.writeStringField("statusPurpose", status.getStatusPurpose().get());
+        }
+        if (status.getStatusListIndex().isPresent()) {
+            gen.writeStringField("statusListIndex", status.getStatusListIndex().get().toString());
+        }
+        if (status.getStatusListCredential().isPresent()) {
+            gen.writeStringField("statusListCredential", status.getStatusListCredential().get().toString());
+        }
+        gen.writeEndObject();
+    }
+
+    static void writeId(JsonGenerator gen, String id) throws IOException {
+        if (id != null) {
+            gen.writeStringField("id", id);
+        }
+    }
+
+    static void writeType(JsonGenerator gen, List<String> types) throws IOException {
+        gen.writeArrayFieldStart("type");
+        for (String type : types) {
+            gen.writeString(type);
+        }
+        gen.writeEndArray();
+    }
+
+    static void writeContext(JsonGenerator gen, List<URI> contexts) throws IOException {
+        if (contexts.size() == 1) {
+            gen.writeStringField("@context", contexts.get(0).toString());
+        } else if (contexts.size() > 1) {
+            gen.writeArrayFieldStart("@context");
+            for (URI context : contexts) {
+                gen.writeString(context.toString());
+            }
+            gen.writeEndArray();
+        }
+    }
+}
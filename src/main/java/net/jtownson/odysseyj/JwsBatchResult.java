@@ -0,0 +1,23 @@
+package net.jtownson.odysseyj;
+
+import lombok.Data;
+
+import java.util.Map;
+
+/**
+ * Outcome of verifying a batch of JWS serializations. Both maps are keyed by the
+ * position of the token in the input collection.
+ */
+@Data
+public class JwsBatchResult {
+    private final Map<Integer, VC> credentials;
+    private final Map<Integer, Throwable> failures;
+
+    public int size() {
+        return credentials.size() + failures.size();
+    }
+
+    public boolean isAllValid() {
+        return failures.isEmpty();
+    }
+}
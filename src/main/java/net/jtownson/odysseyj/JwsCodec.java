@@ -1,76 +1,511 @@
 package net.jtownson.odysseyj;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ObjectNode;
 import lombok.SneakyThrows;
-import org.jose4j.jwa.AlgorithmConstraints;
-import org.jose4j.jws.JsonWebSignature;
+import net.jtownson.odysseyj.MetricsListener.Stage;
 
+import java.io.IOException;
+import java.net.MalformedURLException;
 import java.net.URL;
 import java.security.PrivateKey;
 import java.security.PublicKey;
 import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.Future;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
-import static net.jtownson.odysseyj.URICreator.url;
+import static java.util.Collections.unmodifiableMap;
 
 public class JwsCodec {
 
-    @SneakyThrows
     public static String encodeJws(PrivateKey privateKey, URL publicKeyRef, String alg, VC vc) {
-        JsonWebSignature jws = new JsonWebSignature();
-        jws.setKey(privateKey);
-        jws.getHeaders().setFullHeaderAsJsonString(headers(publicKeyRef, alg, vc));
-        return jws.getCompactSerialization();
+        return encodeJws(privateKey, publicKeyRef, alg, vc, JwsLayout.HEADER);
+    }
+
+    public static String encodeJws(PrivateKey privateKey, URL publicKeyRef, String alg, VC vc, JwsLayout layout) {
+        return new JwsSigner(new SignatureDefinition(alg, publicKeyRef, privateKey), layout).sign(vc);
+    }
+
+    public static DetachedJws encodeDetachedJws(PrivateKey privateKey, URL publicKeyRef, String alg, VC vc) {
+        return new JwsSigner(new SignatureDefinition(alg, publicKeyRef, privateKey)).signDetached(vc);
+    }
+
+    static void writeHeader(JsonGenerator gen, URL publicKeyRef, String alg, VC vc) throws IOException {
+        gen.writeStartObject();
+        gen.writeStringField("cty", "application/vc+json");
+        gen.writeStringField("kid", publicKeyRef.toString());
+        gen.writeStringField("alg", alg);
+        gen.writeStringField("iss", vc.getIssuer().toString());
+        gen.writeNumberField("nbf", vc.getIssuanceDate().toEpochSecond(ZoneOffset.UTC));
+        if (vc.getExpirationDate().isPresent()) {
+            gen.writeNumberField("exp", vc.getExpirationDate().get().toEpochSecond(ZoneOffset.UTC));
+        }
+        gen.writeFieldName("vc");
+        JsonStreamEncoder.writeVc(gen, vc);
+        gen.writeEndObject();
+    }
+
+    static void writeJwtHeader(JsonGenerator gen, URL publicKeyRef, String alg) throws IOException {
+        gen.writeStartObject();
+        gen.writeStringField("typ", "JWT");
+        gen.writeStringField("kid", publicKeyRef.toString());
+        gen.writeStringField("alg", alg);
+        gen.writeEndObject();
+    }
+
+    static void writeDetachedHeader(JsonGenerator gen, URL publicKeyRef, String alg) throws IOException {
+        gen.writeStartObject();
+        gen.writeStringField("kid", publicKeyRef.toString());
+        gen.writeStringField("alg", alg);
+        gen.writeBooleanField("b64", false);
+        gen.writeArrayFieldStart("crit");
+        gen.writeString("b64");
+        gen.writeEndArray();
+        gen.writeEndObject();
+    }
+
+    static void writeClaims(JsonGenerator gen, VC vc) throws IOException {
+        gen.writeStartObject();
+        gen.writeStringField("iss", vc.getIssuer().toString());
+        gen.writeNumberField("nbf", vc.getIssuanceDate().toEpochSecond(ZoneOffset.UTC));
+        if (vc.getExpirationDate().isPresent()) {
+            gen.writeNumberField("exp", vc.getExpirationDate().get().toEpochSecond(ZoneOffset.UTC));
+        }
+        if (vc.getId().isPresent()) {
+            gen.writeStringField("jti", vc.getId().get());
+        }
+        gen.writeFieldName("vc");
+        JsonStreamEncoder.writeVc(gen, vc);
+        gen.writeEndObject();
+    }
+
+    public static String encodeVpJws(PrivateKey privateKey, URL publicKeyRef, String alg, VP vp, List<String> credentialJws) {
+        return new JwsSigner(new SignatureDefinition(alg, publicKeyRef, privateKey)).sign(vp, credentialJws);
+    }
+
+    static void writeVpHeader(JsonGenerator gen, URL publicKeyRef, String alg, VP vp, List<String> credentialJws)
+            throws IOException {
+        gen.writeStartObject();
+        gen.writeStringField("cty", "application/vp+json");
+        gen.writeStringField("kid", publicKeyRef.toString());
+        gen.writeStringField("alg", alg);
+        if (vp.getHolder().isPresent()) {
+            gen.writeStringField("iss", vp.getHolder().get().toString());
+        }
+        gen.writeObjectFieldStart("vp");
+        JsonStreamEncoder.writeContext(gen, vp.getContexts());
+        JsonStreamEncoder.writeType(gen, vp.getTypes());
+        JsonStreamEncoder.writeId(gen, vp.getId().orElse(null));
+        if (vp.getHolder().isPresent()) {
+            gen.writeStringField("holder", vp.getHolder().get().toString());
+        }
+        gen.writeArrayFieldStart("verifiableCredential");
+        for (String jws : credentialJws) {
+            gen.writeString(jws);
+        }
+        gen.writeEndArray();
+        gen.writeEndObject();
+        gen.writeEndObject();
     }
 
-    private static String headers(URL publicKeyRef, String alg, VC vc) {
-        ObjectMapper om = new ObjectMapper();
-        ObjectNode n = om.createObjectNode();
-        n.put("cty", "application/vc+json");
-        n.put("kid", publicKeyRef.toString());
-        n.put("alg", alg);
-        n.put("iss", vc.getIssuer().toString());
-        n.put("nbf", vc.getIssuanceDate().toEpochSecond(ZoneOffset.UTC));
-        vc.getExpirationDate().map(exp -> exp.toEpochSecond(ZoneOffset.UTC));
-        n.set("vc", VCJsonCodec.encode(vc));
-        return n.toString();
+    public static CompletableFuture<VC> decodeJws(
+            List<String> algWhitelist, PublicKeyResolver publicKeyResolver, String jwsSer) {
+        return decodeJws(algWhitelist, publicKeyResolver, jwsSer, null);
     }
 
+    public static CompletableFuture<VC> decodeJws(
+            List<String> algWhitelist, PublicKeyResolver publicKeyResolver, String jwsSer, VerifiedJwsCache cache) {
+        return decodeJws(algWhitelist, publicKeyResolver, jwsSer, cache, null);
+    }
+
+    @SneakyThrows
+    public static CompletableFuture<VC> decodeJws(
+            List<String> algWhitelist,
+            PublicKeyResolver publicKeyResolver,
+            String jwsSer,
+            VerifiedJwsCache cache,
+            TemporalValidator temporalValidator) {
+        VerifiedJwsCache.Key cacheKey = cache == null ? null : cache.key(algWhitelist, jwsSer);
+        VC cached = cache == null ? null : cache.get(cacheKey);
+        if (cached != null) {
+            return CompletableFuture.supplyAsync(() -> checkValidity(temporalValidator, cached), Runnable::run);
+        }
+
+        return decode(CompactJws.parse(algWhitelist, jwsSer), publicKeyResolver, cache, cacheKey, temporalValidator);
+    }
+
+    public static CompletableFuture<VC> decodeDetachedJws(
+            List<String> algWhitelist, PublicKeyResolver publicKeyResolver, String jwsSer, byte[] payload) {
+        return decodeDetachedJws(algWhitelist, publicKeyResolver, jwsSer, payload, null);
+    }
+
+    /**
+     * Verifies a JWS whose unencoded payload was sent separately, as produced by {@link #encodeDetachedJws}.
+     * Detached credentials are not cached, since the cache is keyed by the serialization alone.
+     */
     @SneakyThrows
-    public static Future<VC> decodeJws(List<String> algWhitelist, PublicKeyResolver publicKeyResolver, String jwsSer) {
-        JsonWebSignature jws = new JsonWebSignature();
-        jws.setCompactSerialization(jwsSer);
-        jws.setAlgorithmConstraints(
-                new AlgorithmConstraints(
-                        AlgorithmConstraints.ConstraintType.WHITELIST,
-                        algWhitelist.toArray(new String[0])));
-        URL publicKeyRef = url(jws.getHeader("kid"));
-
-        CompletableFuture<PublicKey> publicKeyF = publicKeyResolver.resolvePublicKey(publicKeyRef);
-
-        return publicKeyF
+    public static CompletableFuture<VC> decodeDetachedJws(
+            List<String> algWhitelist,
+            PublicKeyResolver publicKeyResolver,
+            String jwsSer,
+            byte[] payload,
+            TemporalValidator temporalValidator) {
+        return decode(CompactJws.parseDetached(algWhitelist, jwsSer, payload), publicKeyResolver, null, null,
+                temporalValidator);
+    }
+
+    private static CompletableFuture<VC> decode(
+            CompactJws jws,
+            PublicKeyResolver publicKeyResolver,
+            VerifiedJwsCache cache,
+            VerifiedJwsCache.Key cacheKey,
+            TemporalValidator temporalValidator) throws ParseError {
+        if (temporalValidator != null) {
+            try {
+                temporalValidator.check(jws);
+            } catch (OutsideValidityPeriod e) {
+                CompletableFuture<VC> failed = new CompletableFuture<>();
+                failed.completeExceptionally(e);
+                return failed;
+            }
+        }
+        return resolveKey(publicKeyResolver, jws.getKid())
                 .thenAccept(publicKey -> verifySignature(jws, publicKey))
-                .thenApply(v -> parseVc(jws));
+                .thenApply(v -> cache(cache, cacheKey, jws, checkValidity(temporalValidator, parseVc(jws))));
+    }
+
+    public static CompletableFuture<VC> decodeJwsAsync(
+            List<String> algWhitelist, PublicKeyResolver publicKeyResolver, String jwsSer, Executor executor) {
+        return decodeJwsAsync(algWhitelist, publicKeyResolver, jwsSer, executor, null);
+    }
+
+    public static CompletableFuture<VC> decodeJwsAsync(
+            List<String> algWhitelist,
+            PublicKeyResolver publicKeyResolver,
+            String jwsSer,
+            Executor executor,
+            VerifiedJwsCache cache) {
+        return decodeJwsAsync(algWhitelist, publicKeyResolver, jwsSer, executor, cache, null);
+    }
+
+    public static CompletableFuture<VC> decodeJwsAsync(
+            List<String> algWhitelist,
+            PublicKeyResolver publicKeyResolver,
+            String jwsSer,
+            Executor executor,
+            VerifiedJwsCache cache,
+            TemporalValidator temporalValidator) {
+
+        VerifiedJwsCache.Key cacheKey = cache == null ? null : cache.key(algWhitelist, jwsSer);
+        VC cached = cache == null ? null : cache.get(cacheKey);
+        if (cached != null) {
+            return CompletableFuture.supplyAsync(() -> checkValidity(temporalValidator, cached), Runnable::run);
+        }
+        return CompletableFuture
+                .supplyAsync(() -> checkValidity(temporalValidator, parse(algWhitelist, jwsSer)), executor)
+                .thenCompose(jws -> resolveKey(publicKeyResolver, jws.getKid())
+                        .thenApplyAsync(publicKey -> {
+                            verifySignature(jws, publicKey);
+                            return cache(cache, cacheKey, jws, checkValidity(temporalValidator, parseVc(jws)));
+                        }, executor));
+    }
+
+    public static CompletableFuture<JwsBatchResult> decodeJwsBatch(
+            List<String> algWhitelist, PublicKeyResolver publicKeyResolver, Collection<String> jwsSers, Executor executor) {
+        return decodeJwsBatch(algWhitelist, publicKeyResolver, jwsSers, executor, null);
+    }
+
+    public static CompletableFuture<JwsBatchResult> decodeJwsBatch(
+            List<String> algWhitelist,
+            PublicKeyResolver publicKeyResolver,
+            Collection<String> jwsSers,
+            Executor executor,
+            VerifiedJwsCache cache) {
+        return decodeJwsBatch(algWhitelist, publicKeyResolver, jwsSers, executor, cache, null);
+    }
+
+    public static CompletableFuture<JwsBatchResult> decodeJwsBatch(
+            List<String> algWhitelist,
+            PublicKeyResolver publicKeyResolver,
+            Collection<String> jwsSers,
+            Executor executor,
+            VerifiedJwsCache cache,
+            TemporalValidator temporalValidator) {
+
+        int n = jwsSers.size();
+        AtomicReferenceArray<Object> outcomes = new AtomicReferenceArray<>(n);
+        Map<String, List<Integer>> indicesByKid = new HashMap<>();
+        CompactJws[] parsed = new CompactJws[n];
+        VerifiedJwsCache.Key[] cacheKeys = new VerifiedJwsCache.Key[n];
+
+        int i = 0;
+        for (String jwsSer : jwsSers) {
+            if (cache != null) {
+                cacheKeys[i] = cache.key(algWhitelist, jwsSer);
+                VC cached = cache.get(cacheKeys[i]);
+                if (cached != null) {
+                    try {
+                        if (temporalValidator != null) {
+                            temporalValidator.check(cached);
+                        }
+                        outcomes.set(i++, cached);
+                    } catch (OutsideValidityPeriod e) {
+                        outcomes.set(i++, e);
+                    }
+                    continue;
+                }
+            }
+            try {
+                CompactJws jws = CompactJws.parse(algWhitelist, jwsSer);
+                if (temporalValidator != null) {
+                    temporalValidator.check(jws);
+                }
+                parsed[i] = jws;
+                indicesByKid.computeIfAbsent(jws.getKid(), k -> new ArrayList<>()).add(i);
+            } catch (ParseError | OutsideValidityPeriod e) {
+                outcomes.set(i, e);
+            }
+            i++;
+        }
+
+        List<CompletableFuture<Void>> verifications = new ArrayList<>(n);
+        for (Map.Entry<String, List<Integer>> group : indicesByKid.entrySet()) {
+            CompletableFuture<PublicKey> publicKeyF = resolveKey(publicKeyResolver, group.getKey());
+            for (int index : group.getValue()) {
+                CompactJws jws = parsed[index];
+                verifications.add(publicKeyF
+                        .thenApplyAsync(publicKey -> {
+                            verifySignature(jws, publicKey);
+                            return cache(cache, cacheKeys[index], jws, checkValidity(temporalValidator, parseVc(jws)));
+                        }, executor)
+                        .handle((vc, t) -> {
+                            outcomes.set(index, t == null ? vc : CachingPublicKeyResolver.unwrap(t));
+                            return null;
+                        }));
+            }
+        }
+
+        return CompletableFuture
+                .allOf(verifications.toArray(new CompletableFuture[0]))
+                .thenApply(v -> batchResult(outcomes));
+    }
+
+    public static CompletableFuture<VP> decodeVpJws(
+            List<String> algWhitelist, PublicKeyResolver publicKeyResolver, String jwsSer, Executor executor) {
+        return decodeVpJws(algWhitelist, publicKeyResolver, jwsSer, executor, null, null, null);
+    }
+
+    /**
+     * Verifies a presentation JWS and every credential JWS embedded in it concurrently. Each distinct key is
+     * resolved once. Each credential is checked as {@link JwsVerifier} would check it on its own, so the
+     * cache, temporal validator and status list checker, where given, apply to every credential. The returned
+     * future fails with the first error observed, and verifications that have not started by then are skipped.
+     */
+    public static CompletableFuture<VP> decodeVpJws(
+            List<String> algWhitelist,
+            PublicKeyResolver publicKeyResolver,
+            String jwsSer,
+            Executor executor,
+            VerifiedJwsCache cache,
+            TemporalValidator temporalValidator,
+            StatusListChecker statusListChecker) {
+
+        CompletableFuture<VP> result = new CompletableFuture<>();
+        CompactJws presentation;
+        VP.VPBuilder builder = VP.builder();
+        List<String> credentialJws;
+        CompactJws[] credentials;
+        VC[] cached;
+        VerifiedJwsCache.Key[] cacheKeys;
+        try {
+            presentation = CompactJws.parse(algWhitelist, jwsSer);
+            credentialJws = parseVp(presentation, builder);
+            int n = credentialJws.size();
+            credentials = new CompactJws[n];
+            cached = new VC[n];
+            cacheKeys = new VerifiedJwsCache.Key[n];
+            for (int i = 0; i < n; i++) {
+                if (cache != null) {
+                    cacheKeys[i] = cache.key(algWhitelist, credentialJws.get(i));
+                    cached[i] = cache.get(cacheKeys[i]);
+                }
+                if (cached[i] != null) {
+                    if (temporalValidator != null) {
+                        temporalValidator.check(cached[i]);
+                    }
+                } else {
+                    credentials[i] = CompactJws.parse(algWhitelist, credentialJws.get(i));
+                    if (temporalValidator != null) {
+                        temporalValidator.check(credentials[i]);
+                    }
+                }
+            }
+        } catch (ParseError | OutsideValidityPeriod e) {
+            result.completeExceptionally(e);
+            return result;
+        }
+
+        Map<String, CompletableFuture<PublicKey>> keys = new HashMap<>();
+        List<CompletableFuture<VC>> verifications = new ArrayList<>(credentials.length + 1);
+        verifications.add(verify(presentation, keys, publicKeyResolver, executor, result)
+                .thenApply(v -> null));
+        for (int i = 0; i < credentials.length; i++) {
+            CompactJws credential = credentials[i];
+            VerifiedJwsCache.Key cacheKey = cacheKeys[i];
+            CompletableFuture<VC> verification = cached[i] != null
+                    ? CompletableFuture.completedFuture(cached[i])
+                    : verify(credential, keys, publicKeyResolver, executor, result).thenApply(v -> result.isDone()
+                            ? null
+                            : cache(cache, cacheKey, credential, checkValidity(temporalValidator, parseVc(credential))));
+            if (statusListChecker != null) {
+                verification = verification.thenCompose(vc -> vc == null || result.isDone()
+                        ? CompletableFuture.completedFuture(vc)
+                        : statusListChecker.check(vc));
+            }
+            verifications.add(verification);
+        }
+        for (CompletableFuture<VC> verification : verifications) {
+            verification.whenComplete((vc, t) -> {
+                if (t != null) {
+                    result.completeExceptionally(CachingPublicKeyResolver.unwrap(t));
+                }
+            });
+        }
+        CompletableFuture.allOf(verifications.toArray(new CompletableFuture[0])).thenRun(() -> {
+            for (CompletableFuture<VC> verification : verifications.subList(1, verifications.size())) {
+                builder.verifiableCredential(verification.join());
+            }
+            result.complete(builder.build());
+        });
+        return result;
+    }
+
+    private static CompletableFuture<Void> verify(
+            CompactJws jws,
+            Map<String, CompletableFuture<PublicKey>> keys,
+            PublicKeyResolver publicKeyResolver,
+            Executor executor,
+            CompletableFuture<?> outcome) {
+        return keys.computeIfAbsent(jws.getKid(), kid -> resolveKey(publicKeyResolver, kid))
+                .thenAcceptAsync(publicKey -> {
+                    if (!outcome.isDone()) {
+                        verifySignature(jws, publicKey);
+                    }
+                }, executor);
+    }
+
+    private static List<String> parseVp(CompactJws jws, VP.VPBuilder builder) throws ParseError {
+        JsonNode vp = jws.getClaims().get("vp");
+        if (vp == null || !vp.isObject()) {
+            throw new ParseError("JWS must contain a vp object.");
+        }
+        VCJsonCodec.decodeId(vp, builder::id, "", ValidationErrors.FAIL_FAST);
+        VCJsonCodec.decodeType(vp, builder::type, "VerifiablePresentation", "", ValidationErrors.FAIL_FAST);
+        VCJsonCodec.decodeContext(vp, builder::context, "", ValidationErrors.FAIL_FAST);
+        VPJsonCodec.decodeHolder(vp, builder, "", ValidationErrors.FAIL_FAST);
+
+        JsonNode credentials = vp.get("verifiableCredential");
+        List<String> credentialJws = new ArrayList<>();
+        if (credentials == null) {
+            throw new ParseError("verifiableCredential must be defined.");
+        } else if (credentials.isTextual()) {
+            credentialJws.add(credentials.asText());
+        } else if (credentials.isArray()) {
+            for (JsonNode credential : credentials) {
+                if (!credential.isTextual()) {
+                    throw new ParseError("verifiableCredential elements must be JWS strings. Got " + credential.getNodeType());
+                }
+                credentialJws.add(credential.asText());
+            }
+        } else {
+            throw new ParseError("verifiableCredential must be a JWS string or array of JWS strings.");
+        }
+        return credentialJws;
+    }
+
+    static CompletableFuture<PublicKey> resolveKey(PublicKeyResolver publicKeyResolver, String kid) {
+        long start = Metrics.start();
+        CompletableFuture<PublicKey> publicKeyF;
+        try {
+            publicKeyF = publicKeyResolver.resolvePublicKey(new URL(kid));
+        } catch (MalformedURLException | RuntimeException e) {
+            publicKeyF = new CompletableFuture<>();
+            publicKeyF.completeExceptionally(e);
+        }
+        return publicKeyF.handle((publicKey, t) -> {
+            if (t != null) {
+                Throwable cause = CachingPublicKeyResolver.unwrap(t);
+                KeyResolutionError error =
+                        new KeyResolutionError("Unable to resolve public key " + kid + ": " + cause.getMessage());
+                Metrics.record(Stage.KEY_RESOLUTION, start, -1, error);
+                throw new CompletionException(error);
+            }
+            Metrics.record(Stage.KEY_RESOLUTION, start, -1, null);
+            return publicKey;
+        });
+    }
+
+    private static JwsBatchResult batchResult(AtomicReferenceArray<Object> outcomes) {
+        Map<Integer, VC> credentials = new TreeMap<>();
+        Map<Integer, Throwable> failures = new TreeMap<>();
+        for (int i = 0; i < outcomes.length(); i++) {
+            Object outcome = outcomes.get(i);
+            if (outcome instanceof VC) {
+                credentials.put(i, (VC) outcome);
+            } else {
+                failures.put(i, (Throwable) outcome);
+            }
+        }
+        return new JwsBatchResult(unmodifiableMap(credentials), unmodifiableMap(failures));
+    }
+
+    @SneakyThrows
+    private static CompactJws parse(List<String> algWhitelist, String jwsSer) {
+        return CompactJws.parse(algWhitelist, jwsSer);
+    }
+
+    private static VC cache(VerifiedJwsCache cache, VerifiedJwsCache.Key cacheKey, CompactJws jws, VC vc) {
+        if (cache != null) {
+            cache.put(cacheKey, jws.getKid(), vc);
+        }
+        return vc;
     }
 
     @SneakyThrows
-    private static VC parseVc(JsonWebSignature jws) {
-        String headerString = jws.getHeaders().getFullHeaderAsJsonString();
-        ObjectMapper objectMapper = new ObjectMapper();
-        JsonNode headerJson = objectMapper.readTree(headerString);
-        JsonNode vc = headerJson.get("vc");
+    private static VC parseVc(CompactJws jws) {
+        JsonNode vc = jws.getClaims().get("vc");
+        if (vc == null) {
+            throw new ParseError("JWS must contain a vc.");
+        }
         return VCJsonCodec.decode(vc);
     }
 
     @SneakyThrows
-    private static void verifySignature(JsonWebSignature jws, PublicKey publicKey) {
-        jws.setKey(publicKey);
-        if ( ! jws.verifySignature()) {
-            throw new InvalidSignature();
+    private static CompactJws checkValidity(TemporalValidator temporalValidator, CompactJws jws) {
+        if (temporalValidator != null) {
+            temporalValidator.check(jws);
         }
+        return jws;
+    }
+
+    @SneakyThrows
+    private static VC checkValidity(TemporalValidator temporalValidator, VC vc) {
+        if (temporalValidator != null) {
+            temporalValidator.check(vc);
+        }
+        return vc;
+    }
+
+    @SneakyThrows
+    private static void verifySignature(CompactJws jws, PublicKey publicKey) {
+        jws.verifySignature(publicKey);
     }
 }
@@ -0,0 +1,17 @@
+package net.jtownson.odysseyj;
+
+/**
+ * Where a signed credential is carried in its JWS. {@link JwsCodec} decodes either layout.
+ */
+public enum JwsLayout {
+    /**
+     * The credential and its claims are members of the protected header and the payload is empty.
+     * This is the layout written by earlier versions of this library.
+     */
+    HEADER,
+    /**
+     * A JWT whose payload holds the iss, nbf, exp and jti claims and the credential as the vc claim.
+     * The header holds only typ, kid and alg.
+     */
+    PAYLOAD
+}
@@ -0,0 +1,175 @@
+package net.jtownson.odysseyj;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import lombok.SneakyThrows;
+import net.jtownson.odysseyj.MetricsListener.Stage;
+import org.jose4j.jca.ProviderContext;
+import org.jose4j.jws.AlgorithmIdentifiers;
+import org.jose4j.jws.EcdsaUsingShaAlgorithm;
+import org.jose4j.jws.JsonWebSignatureAlgorithm;
+import org.jose4j.lang.JoseException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.security.Signature;
+import java.util.Base64;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
+/**
+ * Signs credentials with one {@link SignatureDefinition}, reusing its {@link Signature}. Not thread-safe.
+ */
+public class JwsSigner {
+
+    private static final Base64.Encoder base64Url = Base64.getUrlEncoder().withoutPadding();
+
+    private final SignatureDefinition signatureDefinition;
+    private final Signature signature;
+    private final int ecdsaSignatureLength;
+    private final JsonWebSignatureAlgorithm algorithm;
+    private final JwsLayout layout;
+    private final ByteArrayOutputStream headerBuffer = new ByteArrayOutputStream(1024);
+    private final ByteArrayOutputStream payloadBuffer = new ByteArrayOutputStream(1024);
+
+    public JwsSigner(SignatureDefinition signatureDefinition) {
+        this(signatureDefinition, JwsLayout.HEADER);
+    }
+
+    @SneakyThrows
+    public JwsSigner(SignatureDefinition signatureDefinition, JwsLayout layout) {
+        this.signatureDefinition = signatureDefinition;
+        this.layout = layout == null ? JwsLayout.HEADER : layout;
+        this.algorithm = CompactJws.algorithm(signatureDefinition.getAlg());
+        this.algorithm.validateSigningKey(signatureDefinition.getPrivateKey());
+
+        String jcaAlgorithm = jcaAlgorithm(signatureDefinition.getAlg());
+        if (EdDsaAlgorithm.EDDSA.equals(signatureDefinition.getAlg())) {
+            this.signature = EdDsaAlgorithm.newSignature();
+        } else if (jcaAlgorithm != null) {
+            this.signature = Signature.getInstance(jcaAlgorithm);
+        } else {
+            this.signature = null;
+        }
+        if (this.signature != null) {
+            this.signature.initSign(signatureDefinition.getPrivateKey());
+        }
+        this.ecdsaSignatureLength = ecdsaSignatureLength(signatureDefinition.getAlg());
+    }
+
+    public String sign(VC vc) {
+        if (layout == JwsLayout.PAYLOAD) {
+            return sign(gen -> JwsCodec.writeJwtHeader(gen, signatureDefinition.getPublicKeyRef(), signatureDefinition.getAlg()),
+                    gen -> JwsCodec.writeClaims(gen, vc));
+        }
+        return sign(gen -> JwsCodec.writeHeader(gen, signatureDefinition.getPublicKeyRef(), signatureDefinition.getAlg(), vc),
+                null);
+    }
+
+    /**
+     * Signs the credential's claims as an unencoded, detached payload (RFC 7797).
+     */
+    @SneakyThrows
+    public DetachedJws signDetached(VC vc) {
+        long start = Metrics.start();
+        try {
+            byte[] header = write(headerBuffer,
+                    gen -> JwsCodec.writeDetachedHeader(gen, signatureDefinition.getPublicKeyRef(), signatureDefinition.getAlg()));
+            String encodedHeader = base64Url.encodeToString(header);
+            byte[] payload = write(payloadBuffer, gen -> JwsCodec.writeClaims(gen, vc));
+
+            byte[] signingInput = new byte[encodedHeader.length() + 1 + payload.length];
+            System.arraycopy(encodedHeader.getBytes(US_ASCII), 0, signingInput, 0, encodedHeader.length());
+            signingInput[encodedHeader.length()] = '.';
+            System.arraycopy(payload, 0, signingInput, encodedHeader.length() + 1, payload.length);
+
+            String jws = encodedHeader + ".." + base64Url.encodeToString(sign(signingInput));
+            Metrics.record(Stage.JWS_SIGN, start, jws.length() + payload.length, null);
+            return new DetachedJws(jws, payload);
+        } catch (IOException | GeneralSecurityException | JoseException | RuntimeException e) {
+            Metrics.record(Stage.JWS_SIGN, start, -1, e);
+            throw e;
+        }
+    }
+
+    /**
+     * Signs a presentation whose credentials are carried as the given JWS serializations.
+     * Any credentials held in the VP itself are ignored.
+     */
+    public String sign(VP vp, List<String> credentialJws) {
+        return sign(gen -> JwsCodec.writeVpHeader(
+                gen, signatureDefinition.getPublicKeyRef(), signatureDefinition.getAlg(), vp, credentialJws), null);
+    }
+
+    private interface JsonWriter {
+        void write(JsonGenerator gen) throws IOException;
+    }
+
+    @SneakyThrows
+    private String sign(JsonWriter headerWriter, JsonWriter payloadWriter) {
+        long start = Metrics.start();
+        try {
+            String encodedHeader = base64Url.encodeToString(write(headerBuffer, headerWriter));
+            String encodedPayload = payloadWriter == null ? "" : base64Url.encodeToString(write(payloadBuffer, payloadWriter));
+            String signingInput = encodedHeader + "." + encodedPayload;
+            String jws = signingInput + "." + base64Url.encodeToString(sign(signingInput.getBytes(US_ASCII)));
+            Metrics.record(Stage.JWS_SIGN, start, jws.length(), null);
+            return jws;
+        } catch (IOException | GeneralSecurityException | JoseException | RuntimeException e) {
+            Metrics.record(Stage.JWS_SIGN, start, -1, e);
+            throw e;
+        }
+    }
+
+    private static byte[] write(ByteArrayOutputStream buffer, JsonWriter writer) throws IOException {
+        buffer.reset();
+        try (JsonGenerator gen = CodecContext.DEFAULT.getFactory().createGenerator(buffer)) {
+            writer.write(gen);
+        }
+        return buffer.toByteArray();
+    }
+
+    private byte[] sign(byte[] signingInput) throws IOException, GeneralSecurityException, JoseException {
+        if (signature == null) {
+            return algorithm.sign(signatureDefinition.getPrivateKey(), signingInput, new ProviderContext());
+        }
+        signature.update(signingInput);
+        byte[] signatureBytes = signature.sign();
+        return ecdsaSignatureLength > 0
+                ? EcdsaUsingShaAlgorithm.convertDerToConcatenated(signatureBytes, ecdsaSignatureLength)
+                : signatureBytes;
+    }
+
+    private static String jcaAlgorithm(String alg) {
+        switch (alg) {
+            case AlgorithmIdentifiers.ECDSA_USING_P256_CURVE_AND_SHA256:
+                return "SHA256withECDSA";
+            case AlgorithmIdentifiers.ECDSA_USING_P384_CURVE_AND_SHA384:
+                return "SHA384withECDSA";
+            case AlgorithmIdentifiers.ECDSA_USING_P521_CURVE_AND_SHA512:
+                return "SHA512withECDSA";
+            case AlgorithmIdentifiers.RSA_USING_SHA256:
+                return "SHA256withRSA";
+            case AlgorithmIdentifiers.RSA_USING_SHA384:
+                return "SHA384withRSA";
+            case AlgorithmIdentifiers.RSA_USING_SHA512:
+                return "SHA512withRSA";
+            default:
+                return null;
+        }
+    }
+
+    private static int ecdsaSignatureLength(String alg) {
+        switch (alg) {
+            case AlgorithmIdentifiers.ECDSA_USING_P256_CURVE_AND_SHA256:
+                return 64;
+            case AlgorithmIdentifiers.ECDSA_USING_P384_CURVE_AND_SHA384:
+                return 96;
+            case AlgorithmIdentifiers.ECDSA_USING_P521_CURVE_AND_SHA512:
+                return 132;
+            default:
+                return 0;
+        }
+    }
+}
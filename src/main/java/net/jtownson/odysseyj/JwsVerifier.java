@@ -0,0 +1,47 @@
+package net.jtownson.odysseyj;
+
+import lombok.Builder;
+import lombok.Singular;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Verifies JWS credentials asynchronously on its executor, applying the optional cache, status list checker
+ * and temporal validator.
+ */
+@Builder
+public class JwsVerifier {
+    @Singular("alg")
+    private final List<String> algWhitelist;
+    private final PublicKeyResolver publicKeyResolver;
+    @Builder.Default
+    private final Executor executor = ForkJoinPool.commonPool();
+    private final VerifiedJwsCache verifiedJwsCache;
+    private final StatusListChecker statusListChecker;
+    private final TemporalValidator temporalValidator;
+
+    public CompletionStage<VC> verify(String jwsSer) {
+        CompletableFuture<VC> vc =
+                JwsCodec.decodeJwsAsync(algWhitelist, publicKeyResolver, jwsSer, executor, verifiedJwsCache, temporalValidator);
+        return statusListChecker == null ? vc : vc.thenCompose(statusListChecker::check);
+    }
+
+    /**
+     * Verifies a presentation JWS and applies the same checks as {@link #verify(String)} to each embedded credential.
+     */
+    public CompletableFuture<VP> verifyPresentation(String jwsSer) {
+        return JwsCodec.decodeVpJws(algWhitelist, publicKeyResolver, jwsSer, executor, verifiedJwsCache, temporalValidator,
+                statusListChecker);
+    }
+
+    public CompletableFuture<JwsBatchResult> verifyBatch(Collection<String> jwsSers) {
+        CompletableFuture<JwsBatchResult> batch =
+                JwsCodec.decodeJwsBatch(algWhitelist, publicKeyResolver, jwsSers, executor, verifiedJwsCache, temporalValidator);
+        return statusListChecker == null ? batch : batch.thenCompose(statusListChecker::check);
+    }
+}
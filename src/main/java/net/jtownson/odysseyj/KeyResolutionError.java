@@ -0,0 +1,7 @@
+package net.jtownson.odysseyj;
+
+public class KeyResolutionError extends VerificationError {
+    public KeyResolutionError(String message) {
+        super(message);
+    }
+}
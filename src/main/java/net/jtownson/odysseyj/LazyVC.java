@@ -0,0 +1,97 @@
+package net.jtownson.odysseyj;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.Collections.unmodifiableList;
+
+/**
+ * A {@link VC} decoded from raw JSON bytes that validates and materialises only the envelope fields.
+ * The credentialSubject value is located during the initial scan but only parsed, and validated,
+ * the first time {@link #getCredentialSubjects()} or {@link #decodeCredentialSubjects()} is called.
+ */
+public class LazyVC extends VC {
+
+    private final byte[] json;
+    private final int subjectOffset;
+    private final int subjectLength;
+    private volatile List<ObjectNode> credentialSubjects;
+
+    private LazyVC(VC envelope, byte[] json, int subjectOffset, int subjectLength) {
+        super(envelope.getId().orElse(null),
+                envelope.getIssuer(),
+                envelope.getIssuanceDate(),
+                envelope.getExpirationDate().orElse(null),
+                envelope.getTypes(),
+                envelope.getContexts(),
+                null,
+                envelope.getCredentialStatus().orElse(null));
+        this.json = json;
+        this.subjectOffset = subjectOffset;
+        this.subjectLength = subjectLength;
+    }
+
+    public static LazyVC decode(byte[] json) throws ParseError {
+        long[] subjectBounds = new long[2];
+        try (JsonParser parser = CodecContext.DEFAULT.getFactory().createParser(json)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new ParseError("vc must be a JSON object.");
+            }
+            VC envelope = JsonStreamDecoder.readVc(parser, (p, builder) -> {
+                JsonToken token = p.currentToken();
+                if (token != JsonToken.START_OBJECT && token != JsonToken.START_ARRAY) {
+                    throw new ParseError("credentialSubject must be either an object or array of objects.");
+                }
+                subjectBounds[0] = p.getTokenLocation().getByteOffset();
+                p.skipChildren();
+                subjectBounds[1] = p.getCurrentLocation().getByteOffset();
+            });
+            return new LazyVC(envelope, json, (int) subjectBounds[0], (int) (subjectBounds[1] - subjectBounds[0]));
+        } catch (IOException e) {
+            throw CodecContext.parseError(e);
+        }
+    }
+
+    /**
+     * @throws IllegalStateException with the {@link ParseError} as its cause if the credentialSubject is invalid.
+     * Use {@link #decodeCredentialSubjects()} to handle that as a checked error. Lombok's equals, hashCode and
+     * toString read the subjects through this method, so they throw the same exception.
+     */
+    @Override
+    public List<ObjectNode> getCredentialSubjects() {
+        try {
+            return decodeCredentialSubjects();
+        } catch (ParseError e) {
+            throw new IllegalStateException(e.getMessage(), e);
+        }
+    }
+
+    public boolean isCredentialSubjectDecoded() {
+        return credentialSubjects != null;
+    }
+
+    public List<ObjectNode> decodeCredentialSubjects() throws ParseError {
+        List<ObjectNode> subjects = credentialSubjects;
+        if (subjects == null) {
+            subjects = parseCredentialSubjects();
+            credentialSubjects = subjects;
+        }
+        return subjects;
+    }
+
+    private List<ObjectNode> parseCredentialSubjects() throws ParseError {
+        List<ObjectNode> subjects = new ArrayList<>();
+        try (JsonParser parser = CodecContext.DEFAULT.getFactory().createParser(json, subjectOffset, subjectLength)) {
+            parser.nextToken();
+            JsonStreamDecoder.readCredentialSubject(parser, subjects::add);
+        } catch (IOException e) {
+            throw CodecContext.parseError(e);
+        }
+        return unmodifiableList(subjects);
+    }
+}
@@ -0,0 +1,303 @@
+package net.jtownson.odysseyj;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.Builder;
+import org.jose4j.jwk.JsonWebKey;
+import org.jose4j.jwk.PublicJsonWebKey;
+import org.jose4j.lang.JoseException;
+
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.security.PublicKey;
+import java.security.spec.InvalidKeySpecException;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+/**
+ * Resolves public keys from a JWKS file or a directory of key files, indexed in memory up front.
+ * JWK kids must be full key reference URLs; PEM/DER files are found by file: URL, or by file name with {@code matchFileNames}.
+ */
+public class LocalPublicKeyResolver implements PublicKeyResolver, AutoCloseable {
+
+    private static final Duration DEFAULT_SETTLE_DELAY = Duration.ofMillis(100);
+
+    private final Path path;
+    private final boolean matchFileNames;
+    private final long settleDelayMillis;
+    private final List<Runnable> reloadListeners = new CopyOnWriteArrayList<>();
+    private final AtomicLong reloads = new AtomicLong();
+
+    private volatile Index index;
+    private volatile Exception lastReloadFailure;
+    private final WatchService watchService;
+
+    @Builder
+    private LocalPublicKeyResolver(Path path, Boolean watch, Boolean matchFileNames, Duration settleDelay)
+            throws IOException, InvalidKeySpecException {
+
+        if (path == null) {
+            throw new IllegalArgumentException("path to a JWKS file or key directory must be provided.");
+        }
+        this.path = path.toAbsolutePath();
+        this.matchFileNames = matchFileNames != null && matchFileNames;
+        this.settleDelayMillis = (settleDelay == null ? DEFAULT_SETTLE_DELAY : settleDelay).toMillis();
+        this.index = load(this.path);
+        this.watchService = watch != null && watch ? watch() : null;
+    }
+
+    /**
+     * @return a resolver over the keys at the path that reloads them whenever the files change.
+     */
+    public static LocalPublicKeyResolver of(Path path) throws IOException, InvalidKeySpecException {
+        return builder().path(path).watch(true).build();
+    }
+
+    @Override
+    public CompletableFuture<PublicKey> resolvePublicKey(URL publicKeyRef) {
+        PublicKey publicKey = index.lookup(publicKeyRef);
+        if (publicKey == null) {
+            CompletableFuture<PublicKey> failed = new CompletableFuture<>();
+            failed.completeExceptionally(new KeyResolutionError("No key for " + publicKeyRef + " in " + path));
+            return failed;
+        }
+        return CompletableFuture.completedFuture(publicKey);
+    }
+
+    /**
+     * Rebuilds the index from the files now, replacing the current index only if every file loads.
+     */
+    public void reload() throws IOException, InvalidKeySpecException {
+        Index next = load(path);
+        index = next;
+        lastReloadFailure = null;
+        reloads.incrementAndGet();
+        for (Runnable listener : reloadListeners) {
+            listener.run();
+        }
+    }
+
+    /**
+     * Registers a listener run after each successful reload, e.g. {@link VerifiedJwsCache#invalidateAll()}.
+     */
+    public void addReloadListener(Runnable listener) {
+        reloadListeners.add(listener);
+    }
+
+    /**
+     * @return the key references indexed, and the file names too with {@code matchFileNames}.
+     */
+    public Set<String> getKids() {
+        Set<String> kids = new HashSet<>(index.byRef.keySet());
+        kids.addAll(index.byFileName.keySet());
+        return kids;
+    }
+
+    public int size() {
+        return index.byRef.size();
+    }
+
+    public long getReloadCount() {
+        return reloads.get();
+    }
+
+    public Optional<Exception> getLastReloadFailure() {
+        return Optional.ofNullable(lastReloadFailure);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (watchService != null) {
+            watchService.close();
+        }
+    }
+
+    private Index load(Path path) throws IOException, InvalidKeySpecException {
+        Index index = new Index();
+        if (Files.isDirectory(path)) {
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(path, Files::isRegularFile)) {
+                for (Path file : files) {
+                    if (isKeyFile(file)) {
+                        addFile(index, file);
+                    }
+                }
+            }
+        } else {
+            addFile(index, path);
+        }
+        return index;
+    }
+
+    private void addFile(Index index, Path file) throws IOException, InvalidKeySpecException {
+        byte[] content = Files.readAllBytes(file);
+        String name = file.getFileName().toString();
+        if (isJwkFile(name)) {
+            addJwks(index.byRef, file, content);
+        } else {
+            PublicKey publicKey = parse(file, content);
+            add(index.byRef, file, file.toUri().toURL().toString(), publicKey);
+            if (matchFileNames) {
+                add(index.byFileName, file, name, publicKey);
+                int dot = name.lastIndexOf('.');
+                if (dot > 0) {
+                    add(index.byFileName, file, name.substring(0, dot), publicKey);
+                }
+            }
+        }
+    }
+
+    private static void addJwks(Map<String, PublicKey> index, Path file, byte[] content) throws InvalidKeySpecException {
+        JsonNode json;
+        try {
+            json = CodecContext.DEFAULT.getObjectMapper().readTree(content);
+        } catch (IOException e) {
+            throw new InvalidKeySpecException("Unable to parse " + file + ": " + e.getMessage(), e);
+        }
+        if (json == null || !json.isObject()) {
+            throw new InvalidKeySpecException(file + " does not hold a JWK or JWKS.");
+        }
+        JsonNode keys = json.has("keys") ? json.get("keys") : json;
+        for (JsonNode jwk : keys.isArray() ? keys : Collections.singletonList(json)) {
+            String kid = jwk.path("kid").asText(null);
+            if (kid == null) {
+                throw new InvalidKeySpecException("A key in " + file + " has no kid.");
+            }
+            add(index, file, keyRef(file, kid), publicKey(file, jwk));
+        }
+    }
+
+    /**
+     * jose4j 0.7 does not read OKP keys, so Ed25519 keys are converted here.
+     */
+    private static PublicKey publicKey(Path file, JsonNode jwk) throws InvalidKeySpecException {
+        if ("OKP".equals(jwk.path("kty").asText())) {
+            return EdDsaAlgorithm.fromJwk(jwk);
+        }
+        JsonWebKey parsed;
+        try {
+            parsed = JsonWebKey.Factory.newJwk(jwk.toString());
+        } catch (JoseException e) {
+            throw new InvalidKeySpecException("Unable to parse " + file + ": " + e.getMessage(), e);
+        }
+        if (!(parsed instanceof PublicJsonWebKey)) {
+            throw new InvalidKeySpecException("Key " + parsed.getKeyId() + " in " + file + " is not a public key.");
+        }
+        return ((PublicJsonWebKey) parsed).getPublicKey();
+    }
+
+    private static PublicKey parse(Path file, byte[] content) throws InvalidKeySpecException {
+        try {
+            return PublicKeys.parse(content);
+        } catch (InvalidKeySpecException e) {
+            throw new InvalidKeySpecException("Unable to parse " + file + ": " + e.getMessage(), e);
+        }
+    }
+
+    private static String keyRef(Path file, String kid) throws InvalidKeySpecException {
+        try {
+            return new URL(kid).toString();
+        } catch (MalformedURLException e) {
+            throw new InvalidKeySpecException("Key " + kid + " in " + file + " must have the full key reference URL " +
+                    "as its kid, e.g. https://issuer.example/keys#" + kid);
+        }
+    }
+
+    private static void add(Map<String, PublicKey> index, Path file, String kid, PublicKey publicKey)
+            throws InvalidKeySpecException {
+        PublicKey previous = index.put(kid, publicKey);
+        if (previous != null && !previous.equals(publicKey)) {
+            throw new InvalidKeySpecException("Duplicate kid " + kid + " in " + file);
+        }
+    }
+
+    private static boolean isKeyFile(Path file) {
+        String name = file.getFileName().toString();
+        return isJwkFile(name) || name.endsWith(".pem") || name.endsWith(".pub") || name.endsWith(".der");
+    }
+
+    private static boolean isJwkFile(String name) {
+        return name.endsWith(".jwk") || name.endsWith(".jwks") || name.endsWith(".json");
+    }
+
+    private WatchService watch() throws IOException {
+        Path directory = Files.isDirectory(path) ? path : path.getParent();
+        WatchService watcher = directory.getFileSystem().newWatchService();
+        directory.register(watcher, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+        Thread thread = new Thread(() -> awaitChanges(watcher), "local-key-watcher-" + path.getFileName());
+        thread.setDaemon(true);
+        thread.start();
+        return watcher;
+    }
+
+    private void awaitChanges(WatchService watcher) {
+        try {
+            while (true) {
+                WatchKey key = watcher.take();
+                boolean relevant = drain(key);
+                // Editors and deploy tools often write a file in several steps. Wait for them to finish.
+                while ((key = watcher.poll(settleDelayMillis, TimeUnit.MILLISECONDS)) != null) {
+                    relevant |= drain(key);
+                }
+                if (relevant) {
+                    try {
+                        reload();
+                    } catch (IOException | InvalidKeySpecException | RuntimeException e) {
+                        lastReloadFailure = e;
+                    }
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // closed
+        }
+    }
+
+    private static final class Index {
+        private final Map<String, PublicKey> byRef = new HashMap<>();
+        private final Map<String, PublicKey> byFileName = new HashMap<>();
+
+        private PublicKey lookup(URL publicKeyRef) {
+            PublicKey publicKey = byRef.get(publicKeyRef.toString());
+            if (publicKey == null && !byFileName.isEmpty()) {
+                String file = publicKeyRef.getPath();
+                publicKey = byFileName.get(file.substring(file.lastIndexOf('/') + 1));
+            }
+            return publicKey;
+        }
+    }
+
+    private boolean drain(WatchKey key) {
+        boolean relevant = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == OVERFLOW) {
+                relevant = true;
+            } else {
+                Path changed = (Path) event.context();
+                relevant |= Files.isDirectory(path) ? isKeyFile(changed) : changed.equals(path.getFileName());
+            }
+        }
+        key.reset();
+        return relevant;
+    }
+}
@@ -0,0 +1,38 @@
+package net.jtownson.odysseyj;
+
+import net.jtownson.odysseyj.MetricsListener.Outcome;
+import net.jtownson.odysseyj.MetricsListener.Stage;
+
+/**
+ * Holds the process-wide {@link MetricsListener}. While the listener is {@link MetricsListener#NOOP}
+ * the codecs skip reading the clock altogether.
+ */
+public class Metrics {
+
+    private static volatile MetricsListener listener = MetricsListener.NOOP;
+
+    public static void setListener(MetricsListener metricsListener) {
+        listener = metricsListener == null ? MetricsListener.NOOP : metricsListener;
+    }
+
+    public static MetricsListener getListener() {
+        return listener;
+    }
+
+    static long start() {
+        return listener == MetricsListener.NOOP ? 0 : System.nanoTime();
+    }
+
+    static void record(Stage stage, long start, long bytes, Throwable t) {
+        if (start != 0) {
+            recordOutcome(stage, start, bytes, Outcome.of(t));
+        }
+    }
+
+    static void recordOutcome(Stage stage, long start, long bytes, Outcome outcome) {
+        MetricsListener l = listener;
+        if (l != MetricsListener.NOOP && start != 0) {
+            l.record(stage, System.nanoTime() - start, bytes, outcome);
+        }
+    }
+}
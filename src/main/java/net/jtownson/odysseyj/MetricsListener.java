@@ -0,0 +1,54 @@
+package net.jtownson.odysseyj;
+
+/**
+ * Receives timings for each stage of encoding, decoding and verification. Register an implementation
+ * with {@link Metrics#setListener(MetricsListener)}; the default {@link #NOOP} listener disables timing.
+ * Implementations are called concurrently from whichever thread runs the stage and must be thread-safe.
+ */
+public interface MetricsListener {
+
+    MetricsListener NOOP = new MetricsListener() {
+        @Override
+        public void record(Stage stage, long nanos, long bytes, Outcome outcome) {
+        }
+    };
+
+    /**
+     * @param bytes size of the input or output handled by the stage, or -1 when it is not known.
+     */
+    void record(Stage stage, long nanos, long bytes, Outcome outcome);
+
+    enum Stage {
+        JWS_PARSE,
+        KEY_RESOLUTION,
+        SIGNATURE_VERIFICATION,
+        JWS_SIGN,
+        VC_DECODE,
+        VC_ENCODE,
+        VP_DECODE,
+        VP_ENCODE
+    }
+
+    enum Outcome {
+        SUCCESS,
+        PARSE_ERROR,
+        INVALID_SIGNATURE,
+        KEY_RESOLUTION_FAILURE,
+        ERROR;
+
+        public static Outcome of(Throwable t) {
+            t = t == null ? null : CachingPublicKeyResolver.unwrap(t);
+            if (t == null) {
+                return SUCCESS;
+            } else if (t instanceof ParseError) {
+                return PARSE_ERROR;
+            } else if (t instanceof InvalidSignature) {
+                return INVALID_SIGNATURE;
+            } else if (t instanceof KeyResolutionError) {
+                return KEY_RESOLUTION_FAILURE;
+            } else {
+                return ERROR;
+            }
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package net.jtownson.odysseyj;
+
+public class OutsideValidityPeriod extends VerificationError {
+    public OutsideValidityPeriod(String message) {
+        super(message, false);
+    }
+}
@@ -2,6 +2,6 @@ package net.jtownson.odysseyj;
 
 public class ParseError extends VerificationError {
     public ParseError(String message) {
-        super(message);
+        super(message, false);
     }
 }
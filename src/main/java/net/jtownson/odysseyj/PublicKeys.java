@@ -0,0 +1,53 @@
+package net.jtownson.odysseyj;
+
+import java.security.KeyFactory;
+import java.security.NoSuchAlgorithmException;
+import java.security.PublicKey;
+import java.security.spec.InvalidKeySpecException;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Base64;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
+/**
+ * Parses X.509 SubjectPublicKeyInfo EC, RSA or Ed25519 public keys, PEM ("BEGIN PUBLIC KEY") or DER encoded.
+ */
+public class PublicKeys {
+
+    private static final String PEM_HEADER = "-----BEGIN PUBLIC KEY-----";
+    private static final String PEM_FOOTER = "-----END PUBLIC KEY-----";
+    private static final String[] KEY_ALGORITHMS = {"EC", "RSA", EdDsaAlgorithm.ED25519};
+
+    public static PublicKey parse(byte[] encoded) throws InvalidKeySpecException {
+        String text = new String(encoded, US_ASCII);
+        int header = text.indexOf(PEM_HEADER);
+        if (header >= 0) {
+            int footer = text.indexOf(PEM_FOOTER, header);
+            if (footer < 0) {
+                throw new InvalidKeySpecException("PEM public key has no " + PEM_FOOTER + " line.");
+            }
+            try {
+                encoded = Base64.getMimeDecoder().decode(text.substring(header + PEM_HEADER.length(), footer));
+            } catch (IllegalArgumentException e) {
+                throw new InvalidKeySpecException("PEM public key is not valid base64.");
+            }
+        }
+        return fromSubjectPublicKeyInfo(encoded);
+    }
+
+    public static PublicKey fromSubjectPublicKeyInfo(byte[] der) throws InvalidKeySpecException {
+        X509EncodedKeySpec spec = new X509EncodedKeySpec(der);
+        for (String algorithm : KEY_ALGORITHMS) {
+            try {
+                return keyFactory(algorithm).generatePublic(spec);
+            } catch (InvalidKeySpecException | NoSuchAlgorithmException e) {
+                // try the next key type
+            }
+        }
+        throw new InvalidKeySpecException("Unsupported or malformed SubjectPublicKeyInfo.");
+    }
+
+    private static KeyFactory keyFactory(String algorithm) throws NoSuchAlgorithmException {
+        return EdDsaAlgorithm.ED25519.equals(algorithm) ? EdDsaAlgorithm.keyFactory() : KeyFactory.getInstance(algorithm);
+    }
+}
@@ -0,0 +1,7 @@
+package net.jtownson.odysseyj;
+
+public class RevokedCredential extends VerificationError {
+    public RevokedCredential(String message) {
+        super(message, false);
+    }
+}
@@ -0,0 +1,191 @@
+package net.jtownson.odysseyj;
+
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+
+/**
+ * Parses and formats RFC 3339 timestamps without going through {@link java.time.format.DateTimeFormatter}.
+ * Parsing accepts any fraction of a second (kept to nanosecond precision), Z or a numeric offset, and
+ * returns the UTC date-time, which is how {@link VC} holds its dates. Formatting writes UTC with a Z,
+ * adding a 3, 6 or 9 digit fraction only when the time has one.
+ */
+public final class Rfc3339 {
+
+    /**
+     * The longest formatted timestamp, 2020-01-01T00:00:00.123456789Z.
+     */
+    public static final int MAX_LENGTH = 30;
+
+    private static final int[] DAYS_IN_MONTH = {31, 28, 31, 30, 31, 30, 31, 31, 30, 31, 30, 31};
+
+    private Rfc3339() {
+    }
+
+    public static LocalDateTime parse(CharSequence s) throws DateTimeException {
+        int length = s.length();
+        if (length < 20) {
+            throw invalid(s);
+        }
+        int year = digits(s, 0, 4);
+        expect(s, 4, '-');
+        int month = digits(s, 5, 2);
+        expect(s, 7, '-');
+        int day = digits(s, 8, 2);
+        char t = s.charAt(10);
+        if (t != 'T' && t != 't') {
+            throw invalid(s);
+        }
+        int hour = digits(s, 11, 2);
+        expect(s, 13, ':');
+        int minute = digits(s, 14, 2);
+        expect(s, 16, ':');
+        int second = digits(s, 17, 2);
+
+        int i = 19;
+        int nanos = 0;
+        if (s.charAt(i) == '.') {
+            int start = ++i;
+            while (i < length && isDigit(s.charAt(i))) {
+                if (i - start < 9) {
+                    nanos = nanos * 10 + (s.charAt(i) - '0');
+                }
+                i++;
+            }
+            if (i == start) {
+                throw invalid(s);
+            }
+            for (int scale = i - start; scale < 9; scale++) {
+                nanos *= 10;
+            }
+        }
+
+        if (i >= length) {
+            throw invalid(s);
+        }
+        int offsetSeconds;
+        char zone = s.charAt(i);
+        if ((zone == 'Z' || zone == 'z') && i + 1 == length) {
+            offsetSeconds = 0;
+        } else if ((zone == '+' || zone == '-') && i + 6 == length) {
+            int offsetHours = digits(s, i + 1, 2);
+            expect(s, i + 3, ':');
+            int offsetMinutes = digits(s, i + 4, 2);
+            if (offsetHours > 23 || offsetMinutes > 59) {
+                throw invalid(s);
+            }
+            offsetSeconds = (zone == '+' ? 1 : -1) * (offsetHours * 3600 + offsetMinutes * 60);
+        } else {
+            throw invalid(s);
+        }
+
+        if (month < 1 || month > 12 || day < 1 || day > daysInMonth(year, month)
+                || hour > 23 || minute > 59 || second > 60) {
+            throw invalid(s);
+        }
+        // LocalDateTime has no leap seconds. As with Instant parsing, 23:59:60 is read as 23:59:59.
+        if (second == 60) {
+            second = 59;
+        }
+        LocalDateTime local = LocalDateTime.of(year, month, day, hour, minute, second, nanos);
+        return offsetSeconds == 0 ? local : local.minusSeconds(offsetSeconds);
+    }
+
+    public static String format(LocalDateTime dateTime) {
+        char[] buffer = new char[MAX_LENGTH];
+        return new String(buffer, 0, format(dateTime, buffer));
+    }
+
+    /**
+     * Writes the UTC timestamp to the start of the buffer, which must hold at least {@link #MAX_LENGTH} chars.
+     *
+     * @return the number of chars written.
+     */
+    public static int format(LocalDateTime dateTime, char[] buffer) {
+        int year = dateTime.getYear();
+        if (year < 0 || year > 9999) {
+            throw new DateTimeException("Year " + year + " cannot be written as an RFC 3339 timestamp.");
+        }
+        put(buffer, 0, year, 4);
+        buffer[4] = '-';
+        put(buffer, 5, dateTime.getMonthValue(), 2);
+        buffer[7] = '-';
+        put(buffer, 8, dateTime.getDayOfMonth(), 2);
+        buffer[10] = 'T';
+        put(buffer, 11, dateTime.getHour(), 2);
+        buffer[13] = ':';
+        put(buffer, 14, dateTime.getMinute(), 2);
+        buffer[16] = ':';
+        put(buffer, 17, dateTime.getSecond(), 2);
+        int i = 19;
+        int nanos = dateTime.getNano();
+        if (nanos != 0) {
+            buffer[i++] = '.';
+            if (nanos % 1_000_000 == 0) {
+                put(buffer, i, nanos / 1_000_000, 3);
+                i += 3;
+            } else if (nanos % 1_000 == 0) {
+                put(buffer, i, nanos / 1_000, 6);
+                i += 6;
+            } else {
+                put(buffer, i, nanos, 9);
+                i += 9;
+            }
+        }
+        buffer[i++] = 'Z';
+        return i;
+    }
+
+    private static int digits(CharSequence s, int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            char c = s.charAt(i);
+            if (!isDigit(c)) {
+                throw invalid(s);
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static void expect(CharSequence s, int index, char c) {
+        if (s.charAt(index) != c) {
+            throw invalid(s);
+        }
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static int daysInMonth(int year, int month) {
+        if (month == 2 && (year % 4 == 0 && (year % 100 != 0 || year % 400 == 0))) {
+            return 29;
+        }
+        return DAYS_IN_MONTH[month - 1];
+    }
+
+    private static void put(char[] buffer, int start, int value, int width) {
+        for (int i = start + width - 1; i >= start; i--) {
+            buffer[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+
+    private static DateTimeException invalid(CharSequence s) {
+        return new InvalidTimestamp("Not an RFC 3339 timestamp: " + s);
+    }
+
+    /**
+     * Invalid timestamps are routine in untrusted input and the codecs only keep the message.
+     */
+    private static final class InvalidTimestamp extends DateTimeException {
+        private InvalidTimestamp(String message) {
+            super(message);
+        }
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package net.jtownson.odysseyj;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Base64;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static java.util.Collections.emptySet;
+import static java.util.Collections.unmodifiableSet;
+
+/**
+ * An immutable, decoded bitstring status list, as published in the encodedList of a status list credential.
+ * Bits are held in a packed long[] and numbered from the most significant bit of the first byte,
+ * so lookups are a single array access and instances may be shared freely between threads.
+ */
+public final class StatusList {
+
+    private static final int MAX_ENCODED_BYTES = 16 * 1024 * 1024;
+
+    private final long[] words;
+    private final long size;
+    private final Set<String> statusPurposes;
+
+    private StatusList(long[] words, long size, Set<String> statusPurposes) {
+        this.words = words;
+        this.size = size;
+        this.statusPurposes = statusPurposes;
+    }
+
+    /**
+     * Decodes a base64url (optionally multibase 'u' prefixed) GZIP-compressed bitstring.
+     */
+    public static StatusList decode(String encodedList) throws ParseError {
+        byte[] compressed;
+        try {
+            String base64 = encodedList.startsWith("u") ? encodedList.substring(1) : encodedList;
+            compressed = Base64.getUrlDecoder().decode(base64);
+        } catch (IllegalArgumentException e) {
+            throw new ParseError("encodedList is not valid base64url.");
+        }
+        byte[] bits;
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            bits = readAtMost(in, MAX_ENCODED_BYTES);
+        } catch (IOException e) {
+            throw new ParseError("encodedList is not a valid GZIP stream: " + e.getMessage());
+        }
+        return fromBytes(bits, emptySet());
+    }
+
+    /**
+     * Decodes the encodedList and statusPurpose of the (already verified) status list credential's subject.
+     */
+    public static StatusList fromCredential(VC statusListCredential) throws ParseError {
+        for (ObjectNode subject : statusListCredential.getCredentialSubjects()) {
+            JsonNode encodedList = subject.get("encodedList");
+            if (encodedList != null && encodedList.isTextual()) {
+                StatusList list = decode(encodedList.asText());
+                return new StatusList(list.words, list.size, statusPurposes(subject.get("statusPurpose")));
+            }
+        }
+        throw new ParseError("Status list credential must have a credentialSubject with an encodedList.");
+    }
+
+    /**
+     * A list without a status purpose is used for entries of any purpose.
+     */
+    public static StatusList of(BitSet bits, long size) {
+        return of(bits, size, emptySet());
+    }
+
+    public static StatusList of(BitSet bits, long size, Set<String> statusPurposes) {
+        if (size < bits.length()) {
+            throw new IllegalArgumentException("size " + size + " is smaller than the highest set bit " + bits.length());
+        }
+        long[] words = new long[(int) ((size + 63) >>> 6)];
+        for (int i = bits.nextSetBit(0); i >= 0; i = bits.nextSetBit(i + 1)) {
+            words[i >>> 6] |= 1L << (63 - (i & 63));
+        }
+        return new StatusList(words, size, unmodifiableSet(new HashSet<>(statusPurposes)));
+    }
+
+    public boolean isSet(long index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Status list index " + index + " is outside a list of size " + size);
+        }
+        return (words[(int) (index >>> 6)] << (index & 63)) < 0;
+    }
+
+    public long size() {
+        return size;
+    }
+
+    /**
+     * @return the purposes of the list, or an empty set if it was decoded without them.
+     */
+    public Set<String> getStatusPurposes() {
+        return statusPurposes;
+    }
+
+    /**
+     * @return the multibase base64url, GZIP-compressed form used for encodedList.
+     */
+    public String encode() {
+        ByteBuffer bytes = ByteBuffer.allocate((int) ((size + 7) >>> 3));
+        for (int i = 0; i < words.length; i++) {
+            for (int shift = 56; shift >= 0 && bytes.hasRemaining(); shift -= 8) {
+                bytes.put((byte) (words[i] >>> shift));
+            }
+        }
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (OutputStream out = new GZIPOutputStream(compressed)) {
+            out.write(bytes.array());
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return "u" + Base64.getUrlEncoder().withoutPadding().encodeToString(compressed.toByteArray());
+    }
+
+    private static Set<String> statusPurposes(JsonNode statusPurpose) throws ParseError {
+        Set<String> purposes = new HashSet<>();
+        if (statusPurpose != null && statusPurpose.isTextual()) {
+            purposes.add(statusPurpose.asText());
+        } else if (statusPurpose != null && statusPurpose.isArray()) {
+            for (JsonNode purpose : statusPurpose) {
+                if (!purpose.isTextual()) {
+                    throw new ParseError("Status list statusPurpose must be a string or array of strings.");
+                }
+                purposes.add(purpose.asText());
+            }
+        }
+        if (purposes.isEmpty()) {
+            throw new ParseError("Status list credential must have a statusPurpose.");
+        }
+        return unmodifiableSet(purposes);
+    }
+
+    private static StatusList fromBytes(byte[] bits, Set<String> statusPurposes) {
+        long[] words = new long[(bits.length + 7) >>> 3];
+        ByteBuffer buffer = ByteBuffer.wrap(bits);
+        int i = 0;
+        while (buffer.remaining() >= 8) {
+            words[i++] = buffer.getLong();
+        }
+        for (int shift = 56; buffer.hasRemaining(); shift -= 8) {
+            words[i] |= (buffer.get() & 0xffL) << shift;
+        }
+        return new StatusList(words, (long) bits.length * 8, statusPurposes);
+    }
+
+    private static byte[] readAtMost(InputStream in, int limit) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64 * 1024);
+        byte[] chunk = new byte[64 * 1024];
+        int n;
+        while ((n = in.read(chunk)) > 0) {
+            if (out.size() + n > limit) {
+                throw new IOException("decompressed list exceeds " + limit + " bytes");
+            }
+            out.write(chunk, 0, n);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,179 @@
+package net.jtownson.odysseyj;
+
+import lombok.Builder;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+
+import static java.util.Collections.unmodifiableMap;
+
+/**
+ * Rejects credentials whose revocation or suspension bit is set in their status list. Each list is
+ * fetched once through the {@link StatusListResolver} and then served from memory. Once a list is older
+ * than the refresh interval a single background reload is started; callers keep using the previous
+ * list until the new one replaces it.
+ */
+public class StatusListChecker {
+
+    private static final Duration DEFAULT_REFRESH_INTERVAL = Duration.ofMinutes(5);
+
+    private final StatusListResolver statusListResolver;
+    private final long refreshNanos;
+    private final LongSupplier nanoTime;
+    private final Map<String, Holder> lists = new ConcurrentHashMap<>();
+
+    @Builder
+    private StatusListChecker(StatusListResolver statusListResolver, Duration refreshInterval, LongSupplier nanoTime) {
+        if (statusListResolver == null) {
+            throw new IllegalArgumentException("statusListResolver must be provided.");
+        }
+        this.statusListResolver = statusListResolver;
+        this.refreshNanos = (refreshInterval == null ? DEFAULT_REFRESH_INTERVAL : refreshInterval).toNanos();
+        this.nanoTime = nanoTime == null ? System::nanoTime : nanoTime;
+    }
+
+    public static StatusListChecker of(StatusListResolver statusListResolver) {
+        return builder().statusListResolver(statusListResolver).build();
+    }
+
+    /**
+     * @return a stage completing with the credential, or failing with {@link RevokedCredential} if its
+     * status bit is set, or {@link ParseError} if the list has a different statusPurpose. Credentials without
+     * a status list entry pass unchecked.
+     */
+    public CompletableFuture<VC> check(VC vc) {
+        CredentialStatus status = vc.getCredentialStatus().orElse(null);
+        if (status == null || !status.isStatusListEntry() || !isRevocationOrSuspension(status)) {
+            return CompletableFuture.completedFuture(vc);
+        }
+        URI listUri = status.getStatusListCredential().get();
+        long index = status.getStatusListIndex().get();
+        String purpose = status.getStatusPurpose().orElse("revocation");
+        return statusList(listUri).thenApply(list -> {
+            if (!list.getStatusPurposes().isEmpty() && !list.getStatusPurposes().contains(purpose)) {
+                throw new CompletionException(new ParseError("statusPurpose " + purpose + " does not match the " +
+                        "status list " + listUri + " with purpose " + String.join(", ", list.getStatusPurposes())));
+            }
+            if (index >= list.size()) {
+                throw new CompletionException(new ParseError(
+                        "statusListIndex " + index + " is outside the status list " + listUri));
+            }
+            if (list.isSet(index)) {
+                throw new CompletionException(new RevokedCredential(
+                        "Credential " + vc.getId().orElse("") + " has status " +
+                                purpose + " in " + listUri));
+            }
+            return vc;
+        });
+    }
+
+    /**
+     * Checks the credentials of a verified batch, moving any that are revoked or suspended to the failures.
+     */
+    public CompletableFuture<JwsBatchResult> check(JwsBatchResult batch) {
+        Map<Integer, VC> credentials = new TreeMap<>();
+        Map<Integer, Throwable> failures = new TreeMap<>(batch.getFailures());
+        List<CompletableFuture<Void>> checks = new ArrayList<>(batch.getCredentials().size());
+        for (Map.Entry<Integer, VC> entry : batch.getCredentials().entrySet()) {
+            checks.add(check(entry.getValue()).handle((vc, t) -> {
+                synchronized (credentials) {
+                    if (t == null) {
+                        credentials.put(entry.getKey(), vc);
+                    } else {
+                        failures.put(entry.getKey(), CachingPublicKeyResolver.unwrap(t));
+                    }
+                }
+                return null;
+            }));
+        }
+        return CompletableFuture.allOf(checks.toArray(new CompletableFuture[0]))
+                .thenApply(v -> new JwsBatchResult(unmodifiableMap(credentials), unmodifiableMap(failures)));
+    }
+
+    /**
+     * Replaces the list held for the given statusListCredential, e.g. when it is pushed rather than polled.
+     */
+    public void update(URI statusListCredential, StatusList statusList) {
+        lists.put(statusListCredential.toString(), new Holder(CompletableFuture.completedFuture(statusList)));
+    }
+
+    /**
+     * Reloads the list now. Callers keep seeing the current list until the reload succeeds.
+     */
+    public CompletableFuture<StatusList> refresh(URI statusListCredential) {
+        Holder holder = lists.get(statusListCredential.toString());
+        if (holder == null) {
+            return statusList(statusListCredential);
+        }
+        return reload(holder, statusListCredential);
+    }
+
+    public int size() {
+        return lists.size();
+    }
+
+    private CompletableFuture<StatusList> statusList(URI listUri) {
+        Holder holder = lists.computeIfAbsent(listUri.toString(), k -> new Holder(load(listUri)));
+        CompletableFuture<StatusList> current = holder.current;
+        if (current.isCompletedExceptionally()) {
+            return reload(holder, listUri);
+        }
+        if (current.isDone() && nanoTime.getAsLong() - holder.loadedAt > refreshNanos) {
+            reload(holder, listUri);
+        }
+        return current;
+    }
+
+    private CompletableFuture<StatusList> reload(Holder holder, URI listUri) {
+        if (!holder.reloading.compareAndSet(false, true)) {
+            return holder.current;
+        }
+        CompletableFuture<StatusList> next = load(listUri);
+        if (holder.current.isCompletedExceptionally()) {
+            holder.current = next;
+        }
+        return next.whenComplete((list, t) -> {
+            if (t == null) {
+                holder.current = next;
+                holder.loadedAt = nanoTime.getAsLong();
+            }
+            holder.reloading.set(false);
+        });
+    }
+
+    private CompletableFuture<StatusList> load(URI listUri) {
+        try {
+            return statusListResolver.resolveStatusList(listUri);
+        } catch (RuntimeException e) {
+            CompletableFuture<StatusList> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            return failed;
+        }
+    }
+
+    private static boolean isRevocationOrSuspension(CredentialStatus status) {
+        String purpose = status.getStatusPurpose().orElse("revocation");
+        return "revocation".equals(purpose) || "suspension".equals(purpose);
+    }
+
+    private final class Holder {
+        private volatile CompletableFuture<StatusList> current;
+        private volatile long loadedAt;
+        private final AtomicBoolean reloading = new AtomicBoolean();
+
+        private Holder(CompletableFuture<StatusList> current) {
+            this.current = current;
+            this.loadedAt = nanoTime.getAsLong();
+            current.thenRun(() -> loadedAt = nanoTime.getAsLong());
+        }
+    }
+}
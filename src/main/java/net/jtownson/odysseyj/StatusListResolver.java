@@ -0,0 +1,12 @@
+package net.jtownson.odysseyj;
+
+import java.net.URI;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Fetches the status list published at a statusListCredential URI. Implementations are expected to
+ * verify the status list credential before decoding it, e.g. with {@link StatusList#fromCredential(VC)}.
+ */
+public interface StatusListResolver {
+    CompletableFuture<StatusList> resolveStatusList(URI statusListCredential);
+}
@@ -0,0 +1,72 @@
+package net.jtownson.odysseyj;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.Builder;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Rejects credentials used before their nbf/issuanceDate or at or after their exp/expirationDate, allowing for clock skew.
+ */
+public class TemporalValidator {
+
+    private final Clock clock;
+    private final long skewSeconds;
+
+    @Builder
+    private TemporalValidator(Clock clock, Duration skew) {
+        this.clock = clock == null ? Clock.systemUTC() : clock;
+        this.skewSeconds = skew == null ? 0 : skew.getSeconds();
+        if (skewSeconds < 0) {
+            throw new IllegalArgumentException("skew must not be negative. Got " + skew);
+        }
+    }
+
+    public static TemporalValidator of(Duration skew) {
+        return builder().skew(skew).build();
+    }
+
+    public void check(CompactJws jws) throws OutsideValidityPeriod, ParseError {
+        long now = clock.millis() / 1000;
+        JsonNode claims = jws.getClaims();
+        Long notBefore = epochSeconds(claims, "nbf");
+        if (notBefore != null && now + skewSeconds < notBefore) {
+            throw new OutsideValidityPeriod("JWS is not valid before " + Instant.ofEpochSecond(notBefore));
+        }
+        Long expires = epochSeconds(claims, "exp");
+        if (expires != null && now - skewSeconds >= expires) {
+            throw new OutsideValidityPeriod("JWS expired at " + Instant.ofEpochSecond(expires));
+        }
+    }
+
+    public void check(VC vc) throws OutsideValidityPeriod {
+        long now = clock.millis() / 1000;
+        if (now + skewSeconds < epochSeconds(vc.getIssuanceDate())) {
+            throw new OutsideValidityPeriod("Credential " + vc.getId().orElse("") +
+                    " is not valid before its issuanceDate " + Rfc3339.format(vc.getIssuanceDate()));
+        }
+        if (vc.getExpirationDate().isPresent() && now - skewSeconds >= epochSeconds(vc.getExpirationDate().get())) {
+            throw new OutsideValidityPeriod("Credential " + vc.getId().orElse("") +
+                    " expired at " + Rfc3339.format(vc.getExpirationDate().get()));
+        }
+    }
+
+    private static long epochSeconds(LocalDateTime date) {
+        return date.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private static Long epochSeconds(JsonNode claims, String claim) throws ParseError {
+        JsonNode value = claims.get(claim);
+        if (value == null) {
+            return null;
+        }
+        if (!value.isNumber()) {
+            throw new ParseError("JWS " + claim + " must be a number of seconds since the epoch. Got " + value);
+        }
+        return value.asLong();
+    }
+}
@@ -3,6 +3,7 @@ package net.jtownson.odysseyj;
 import lombok.SneakyThrows;
 
 import java.net.URI;
+import java.net.URISyntaxException;
 import java.net.URL;
 
 public class URICreator {
@@ -14,6 +15,18 @@ public class URICreator {
         }
     }
 
+    /**
+     * @return the parsed URI, or null if the value is not an absolute URI.
+     */
+    public static URI absoluteUri(String maybeUri) {
+        try {
+            URI uri = new URI(maybeUri);
+            return uri.isAbsolute() ? uri : null;
+        } catch (URISyntaxException e) {
+            return null;
+        }
+    }
+
     public static URI uri(String uri) {
         return URI.create(uri);
     }
@@ -0,0 +1,148 @@
+package net.jtownson.odysseyj;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.HttpURLConnection;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.security.PublicKey;
+import java.security.spec.InvalidKeySpecException;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Resolves a key reference by reading the key it points to. Only https references are read, or only those
+ * under one of the trusted prefixes when given. Listing an http prefix is the only way to allow http.
+ */
+public class UrlPublicKeyResolver implements PublicKeyResolver {
+
+    private static final int MAX_KEY_BYTES = 64 * 1024;
+
+    private final Executor executor;
+    private final List<URL> trustedPrefixes;
+
+    public UrlPublicKeyResolver() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public UrlPublicKeyResolver(Executor executor) {
+        this(executor, null);
+    }
+
+    public UrlPublicKeyResolver(List<String> trustedPrefixes) {
+        this(ForkJoinPool.commonPool(), trustedPrefixes);
+    }
+
+    public UrlPublicKeyResolver(Executor executor, List<String> trustedPrefixes) {
+        this.executor = executor;
+        this.trustedPrefixes = trustedPrefixes == null || trustedPrefixes.isEmpty()
+                ? null
+                : trustedPrefixes.stream().map(UrlPublicKeyResolver::parsePrefix).collect(toList());
+    }
+
+    @Override
+    public CompletableFuture<PublicKey> resolvePublicKey(URL publicKeyRef) {
+        if (!isTrusted(publicKeyRef)) {
+            CompletableFuture<PublicKey> refused = new CompletableFuture<>();
+            refused.completeExceptionally(new KeyResolutionError("Key reference " + publicKeyRef + " is not trusted."));
+            return refused;
+        }
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return PublicKeys.parse(read(publicKeyRef));
+            } catch (InvalidKeySpecException e) {
+                throw new CompletionException(e);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, executor);
+    }
+
+    boolean isTrusted(URL publicKeyRef) {
+        if (publicKeyRef.getUserInfo() != null || !isNormalized(publicKeyRef.getPath())) {
+            return false;
+        }
+        if (trustedPrefixes == null) {
+            return "https".equals(publicKeyRef.getProtocol());
+        }
+        for (URL prefix : trustedPrefixes) {
+            if (isUnder(publicKeyRef, prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Scheme, host and port must match exactly. The prefix path matches whole path segments: it either ends
+     * with a slash or is the entire path of the reference.
+     */
+    private static boolean isUnder(URL publicKeyRef, URL prefix) {
+        if (!prefix.getProtocol().equals(publicKeyRef.getProtocol())
+                || !prefix.getHost().equalsIgnoreCase(publicKeyRef.getHost())
+                || port(prefix) != port(publicKeyRef)) {
+            return false;
+        }
+        String prefixPath = prefix.getPath().isEmpty() ? "/" : prefix.getPath();
+        String path = publicKeyRef.getPath().isEmpty() ? "/" : publicKeyRef.getPath();
+        return prefixPath.endsWith("/") ? path.startsWith(prefixPath) : path.equals(prefixPath);
+    }
+
+    private static int port(URL url) {
+        return url.getPort() == -1 ? url.getDefaultPort() : url.getPort();
+    }
+
+    /**
+     * Dot segments, and encoded dots or slashes, could step outside a trusted path once the server decodes them.
+     */
+    private static boolean isNormalized(String path) {
+        String lower = path.toLowerCase(Locale.ROOT);
+        return !lower.contains("%2e") && !lower.contains("%2f") && !lower.contains("%5c") && !path.contains("\\")
+                && !("/" + path + "/").matches(".*/\\.{1,2}/.*");
+    }
+
+    private static URL parsePrefix(String prefix) {
+        try {
+            URL url = new URL(prefix);
+            if (url.getUserInfo() != null || url.getQuery() != null || url.getRef() != null) {
+                throw new IllegalArgumentException("Trusted prefix " + prefix + " must not have user info, a query or a fragment.");
+            }
+            return url;
+        } catch (MalformedURLException e) {
+            throw new IllegalArgumentException("Trusted prefix " + prefix + " is not a valid URL.", e);
+        }
+    }
+
+    private static byte[] read(URL publicKeyRef) throws IOException {
+        URLConnection connection = publicKeyRef.openConnection();
+        if (connection instanceof HttpURLConnection) {
+            // A redirect would leave the trusted prefix, so treat it as a failure.
+            HttpURLConnection http = (HttpURLConnection) connection;
+            http.setInstanceFollowRedirects(false);
+            if (http.getResponseCode() != HttpURLConnection.HTTP_OK) {
+                throw new IOException("Public key at " + publicKeyRef + " returned HTTP " + http.getResponseCode() + ".");
+            }
+        }
+        try (InputStream in = connection.getInputStream()) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] chunk = new byte[4096];
+            int n;
+            while ((n = in.read(chunk)) > 0) {
+                if (out.size() + n > MAX_KEY_BYTES) {
+                    throw new IOException("Public key at " + publicKeyRef + " exceeds " + MAX_KEY_BYTES + " bytes.");
+                }
+                out.write(chunk, 0, n);
+            }
+            return out.toByteArray();
+        }
+    }
+}
@@ -10,12 +10,16 @@ import java.io.File;
 import java.net.URI;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.Future;
 
 import static java.util.Collections.unmodifiableList;
-import static net.jtownson.odysseyj.URICreator.uri;
 
 @Data
 @Builder
@@ -27,6 +31,7 @@ public class VC {
     @Singular private final List<String> types;
     @Singular private final List<URI> contexts;
     @Singular private final List<ObjectNode> credentialSubjects;
+    private final CredentialStatus credentialStatus;
 
     public Optional<String> getId() {
         return Optional.ofNullable(id);
@@ -36,6 +41,10 @@ public class VC {
         return Optional.ofNullable(expirationDate);
     }
 
+    public Optional<CredentialStatus> getCredentialStatus() {
+        return Optional.ofNullable(credentialStatus);
+    }
+
     @SneakyThrows
     @Builder(builderMethodName = "jwsBuilder")
     public static String toJws(
@@ -46,24 +55,75 @@ public class VC {
             SignatureDefinition signatureDefinition,
             String id,
             LocalDateTime issuanceDate,
-            LocalDateTime expirationDate) {
+            LocalDateTime expirationDate,
+            CredentialStatus credentialStatus,
+            JwsLayout layout) {
 
-        VC vc = new VC(id, issuer, issuanceDate, expirationDate, types(additionalTypes), contexts(additionalContexts), credentialSubjects);
+        VC vc = new VC(id, issuer, issuanceDate, expirationDate, types(additionalTypes), contexts(additionalContexts),
+                credentialSubjects, credentialStatus);
         return JwsCodec.encodeJws(
                 signatureDefinition.getPrivateKey(),
                 signatureDefinition.getPublicKeyRef(),
                 signatureDefinition.getAlg(),
-                vc);
+                vc,
+                layout);
     }
 
     public static Future<VC> fromJws(List<String> algWhitelist, PublicKeyResolver publicKeyResolver, String jwsSer) {
         return JwsCodec.decodeJws(algWhitelist, publicKeyResolver, jwsSer);
     }
 
+    /**
+     * Verifies the JWS with the verifier's keys, applying its cache, status list checker and temporal validator.
+     */
+    public static Future<VC> fromJws(String jwsSer, JwsVerifier verifier) {
+        return verifier.verify(jwsSer).toCompletableFuture();
+    }
+
+    /**
+     * Verifies a JWS whose unencoded payload was sent separately. See {@link DetachedJws}.
+     */
+    public static Future<VC> fromDetachedJws(
+            List<String> algWhitelist, PublicKeyResolver publicKeyResolver, String jwsSer, byte[] payload) {
+        return JwsCodec.decodeDetachedJws(algWhitelist, publicKeyResolver, jwsSer, payload);
+    }
+
+    public static CompletionStage<VC> fromJwsAsync(
+            List<String> algWhitelist, PublicKeyResolver publicKeyResolver, String jwsSer, Executor executor) {
+        return JwsCodec.decodeJwsAsync(algWhitelist, publicKeyResolver, jwsSer, executor);
+    }
+
+    public static CompletableFuture<JwsBatchResult> fromJwsBatch(
+            List<String> algWhitelist, PublicKeyResolver publicKeyResolver, Collection<String> jwsSers) {
+        return fromJwsBatch(algWhitelist, publicKeyResolver, jwsSers, ForkJoinPool.commonPool());
+    }
+
+    public static CompletableFuture<JwsBatchResult> fromJwsBatch(
+            List<String> algWhitelist, PublicKeyResolver publicKeyResolver, Collection<String> jwsSers, Executor executor) {
+        return JwsCodec.decodeJwsBatch(algWhitelist, publicKeyResolver, jwsSers, executor);
+    }
+
     public static VC fromJsonLd(File jsonLdFile) throws ParseError {
         return VCJsonCodec.decode(jsonLdFile);
     }
 
+    /**
+     * @return the credential with the VerifiableCredential type and v1 context that {@link #jwsBuilder()} adds.
+     */
+    static VC withDefaults(VC vc) {
+        boolean typed = vc.getTypes().contains("VerifiableCredential");
+        boolean v1First = !vc.getContexts().isEmpty() && Interner.V1.equals(vc.getContexts().get(0));
+        if (typed && v1First) {
+            return vc;
+        }
+        List<String> additionalTypes = new ArrayList<>(vc.getTypes());
+        additionalTypes.remove("VerifiableCredential");
+        List<URI> additionalContexts = new ArrayList<>(vc.getContexts());
+        additionalContexts.remove(Interner.V1);
+        return new VC(vc.id, vc.issuer, vc.issuanceDate, vc.expirationDate, types(additionalTypes),
+                contexts(additionalContexts), vc.getCredentialSubjects(), vc.credentialStatus);
+    }
+
     private static List<String> types(List<String> additionalTypes) {
         List<String> types = new ArrayList();
         types.add("VerifiableCredential");
@@ -73,7 +133,7 @@ public class VC {
 
     private static List<URI> contexts(List<URI> additionalContexts) {
         List<URI> contexts = new ArrayList();
-        contexts.add(uri("https://www.w3.org/2018/credentials/v1"));
+        contexts.add(Interner.V1);
         contexts.addAll(additionalContexts);
         return unmodifiableList(contexts);
     }
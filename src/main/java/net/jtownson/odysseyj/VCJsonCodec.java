@@ -5,36 +5,40 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.JsonNodeType;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import lombok.SneakyThrows;
+import net.jtownson.odysseyj.MetricsListener.Outcome;
+import net.jtownson.odysseyj.MetricsListener.Stage;
 import net.jtownson.odysseyj.VC.VCBuilder;
 
 import java.io.File;
-import java.io.IOException;
 import java.net.URI;
+import java.time.DateTimeException;
 import java.time.LocalDateTime;
-import java.time.ZoneId;
-import java.time.format.DateTimeFormatter;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
 import java.util.function.Consumer;
-import java.util.stream.Collectors;
-import java.util.stream.StreamSupport;
 
-import static net.jtownson.odysseyj.URICreator.isAbsoluteUri;
-import static net.jtownson.odysseyj.URICreator.uri;
+import static net.jtownson.odysseyj.URICreator.absoluteUri;
 
 public class VCJsonCodec {
 
     public static JsonNode encode(VC vc) {
-        ObjectMapper objectMapper = new ObjectMapper();
+        long start = Metrics.start();
+        JsonNode json = encodeNode(vc);
+        Metrics.record(Stage.VC_ENCODE, start, -1, null);
+        return json;
+    }
+
+    static ObjectNode encodeNode(VC vc) {
+        ObjectMapper objectMapper = CodecContext.DEFAULT.getObjectMapper();
         ObjectNode json = objectMapper.createObjectNode();
         putContext(vc.getContexts(), objectMapper, json);
         putType(vc.getTypes(), objectMapper, json);
         putId(vc.getId(), json);
         json.put("issuer", vc.getIssuer().toString());
-        json.put("issuanceDate", dfRfc3339.format(vc.getIssuanceDate()));
+        json.put("issuanceDate", formatDate(vc.getIssuanceDate()));
         if (vc.getExpirationDate().isPresent()) {
-            json.put("expirationDate", dfRfc3339.format(vc.getExpirationDate().get()));
+            json.put("expirationDate", formatDate(vc.getExpirationDate().get()));
         }
 
         if (vc.getCredentialSubjects().size() == 1) {
@@ -44,189 +48,331 @@ public class VCJsonCodec {
             vc.getCredentialSubjects().forEach(credentialSubjects::add);
             json.set("credentialSubject", credentialSubjects);
         }
+        vc.getCredentialStatus().ifPresent(status -> json.set("credentialStatus", encodeCredentialStatus(status)));
 
         return json;
     }
 
     public static VC decode(File json) throws ParseError {
-        ObjectMapper objectMapper = new ObjectMapper();
+        return CodecContext.DEFAULT.decodeVc(json);
+    }
+
+    public static VC decode(JsonNode json) throws ParseError {
+        long start = Metrics.start();
         try {
-            return decode(objectMapper.readTree(json));
-        } catch (IOException e) {
-            throw new ParseError("Unable to parse json. Caught an IOException: " + e.getMessage());
+            VC vc = decodeNode(json);
+            Metrics.record(Stage.VC_DECODE, start, -1, null);
+            return vc;
+        } catch (ParseError | RuntimeException e) {
+            Metrics.record(Stage.VC_DECODE, start, -1, e);
+            throw e;
         }
     }
 
-    public static VC decode(JsonNode json) throws ParseError {
-        VCBuilder builder = VC.builder();
+    /**
+     * Validates the credential, reporting every structural error rather than stopping at the first.
+     */
+    @SneakyThrows
+    public static ValidationResult<VC> validate(JsonNode json) {
+        long start = Metrics.start();
+        ValidationErrors errors = ValidationErrors.collecting();
+        VC vc = decodeNode(json, "", errors);
+        Metrics.recordOutcome(Stage.VC_DECODE, start, -1, vc == null ? Outcome.PARSE_ERROR : Outcome.SUCCESS);
+        return errors.result(vc);
+    }
+
+    static VC decodeNode(JsonNode json) throws ParseError {
+        return decodeNode(json, "", ValidationErrors.FAIL_FAST);
+    }
+
+    /**
+     * @return the credential, or null if errors were collected for it.
+     */
+    static VC decodeNode(JsonNode json, String at, ValidationErrors errors) throws ParseError {
         if (! json.getNodeType().equals(JsonNodeType.OBJECT)) {
-            throw new ParseError("vc must be a JSON object.");
+            errors.add(at, "vc must be a JSON object.");
+            return null;
         }
 
-        decodeId(json, builder::id);
-        decodeType(json, builder::type, "VerifiableCredential");
-        decodeContext(json, builder::context);
-        decodeIssuer(json, builder);
-        decodeIssuanceDate(json, builder);
-        decodeExpirationDate(json, builder);
-        decodeCredentialSubject(json, builder);
-        return builder.build();
+        int reported = errors.size();
+        VCBuilder builder = VC.builder();
+        decodeId(json, builder::id, at, errors);
+        decodeType(json, builder::type, "VerifiableCredential", at, errors);
+        decodeContext(json, builder::context, at, errors);
+        decodeIssuer(json, builder, at, errors);
+        decodeIssuanceDate(json, builder, at, errors);
+        decodeExpirationDate(json, builder, at, errors);
+        decodeCredentialSubject(json, builder, at, errors);
+        JsonNode credentialStatus = json.get("credentialStatus");
+        if (credentialStatus != null) {
+            builder.credentialStatus(decodeCredentialStatus(credentialStatus, errors.at(at, "credentialStatus"), errors));
+        }
+        return errors.size() == reported ? builder.build() : null;
     }
 
-    private static final DateTimeFormatter dfRfc3339 = DateTimeFormatter
-            .ofPattern("yyyy-MM-dd'T'HH:mm:ss'Z'")
-            .withZone(ZoneId.of("UTC"));
+    static final String v1 = "https://www.w3.org/2018/credentials/v1";
+
+    static String formatDate(LocalDateTime date) {
+        return Rfc3339.format(date);
+    }
+
+    static LocalDateTime parseDate(String field, String value) throws ParseError {
+        return parseDate(field, value, "", ValidationErrors.FAIL_FAST);
+    }
 
-    private static void decodeCredentialSubject(JsonNode json, VCBuilder builder) throws ParseError {
+    private static LocalDateTime parseDate(String field, String value, String at, ValidationErrors errors)
+            throws ParseError {
+        try {
+            return Rfc3339.parse(value);
+        } catch (DateTimeException e) {
+            errors.add(errors.at(at, field), field + " must be an RFC 3339 date. Got " + value);
+            return null;
+        }
+    }
+
+    static String typeError(String initialType) {
+        return "type field must be an array of the form ["+initialType+", <string values...>].";
+    }
+
+    static String contextError() {
+        return "context field must be an array of the form ["+v1+", <uris...>].";
+    }
+
+    private static void decodeCredentialSubject(JsonNode json, VCBuilder builder, String at, ValidationErrors errors)
+            throws ParseError {
         JsonNode subjectNode = json.get("credentialSubject");
-        if (subjectNode.isObject()) {
+        if (subjectNode == null) {
+            errors.add(errors.at(at, "credentialSubject"), "credentialSubject must be either an object or array of objects.");
+        } else if (subjectNode.isObject()) {
             builder.credentialSubject((ObjectNode)subjectNode);
         } else if (subjectNode.isArray()) {
-            List<JsonNode> subjectNodes = toList(subjectNode.elements());
-            for (JsonNode node : subjectNodes) {
+            for (int i = 0; i < subjectNode.size(); i++) {
+                JsonNode node = subjectNode.get(i);
                 if (node.isObject()) {
                     builder.credentialSubject((ObjectNode) node);
                 } else {
-                    throw new ParseError("Invalid object type in credentialSubject: " + node.getNodeType());
+                    errors.add(errors.at(at, "credentialSubject", i),
+                            "Invalid object type in credentialSubject: " + node.getNodeType());
                 }
             }
         } else {
-            throw new ParseError("credentialSubject must be either an object or array of objects.");
+            errors.add(errors.at(at, "credentialSubject"), "credentialSubject must be either an object or array of objects.");
         }
     }
 
-    static void decodeType(JsonNode json, Consumer<String> builder, String initialType) throws ParseError {
-        JsonNode typeNode = json.get("type");
-        if (typeNode == null || ! typeNode.isArray()) {
-            throw new ParseError("type field must be an array of the form ["+initialType+", <string values...>].");
+    static ObjectNode encodeCredentialStatus(CredentialStatus status) {
+        ObjectNode json = CodecContext.DEFAULT.getObjectMapper().createObjectNode();
+        json.put("id", status.getId().toString());
+        json.put("type", status.getType());
+        status.getStatusPurpose().ifPresent(purpose -> json.put("statusPurpose", purpose));
+        status.getStatusListIndex().ifPresent(index -> json.put("statusListIndex", index.toString()));
+        status.getStatusListCredential().ifPresent(uri -> json.put("statusListCredential", uri.toString()));
+        return json;
+    }
+
+    static CredentialStatus decodeCredentialStatus(JsonNode json) throws ParseError {
+        return decodeCredentialStatus(json, "", ValidationErrors.FAIL_FAST);
+    }
+
+    private static CredentialStatus decodeCredentialStatus(JsonNode json, String at, ValidationErrors errors)
+            throws ParseError {
+        if (!json.isObject()) {
+            errors.add(at, "credentialStatus must be an object.");
+            return null;
         }
+        int reported = errors.size();
+        URI id = requireUri(json, "id", "credentialStatus.id", at, errors, false);
+        String type = requireText(json, "type", "credentialStatus.type", at, errors);
+        CredentialStatus.CredentialStatusBuilder builder = CredentialStatus.builder()
+                .id(id)
+                .type(type == null ? null : Interner.SHARED.string(type));
 
-        List<JsonNode> types = toList(typeNode.elements());
-        if (types.size() == 0) {
-            throw new ParseError("type field must be an array of the form ["+initialType+", <string values...>].");
-        } else {
-            JsonNode t0 = types.get(0);
-            if (t0.getNodeType() != JsonNodeType.STRING || !t0.asText().equals(initialType)) {
-                throw new ParseError("type field must be an array of the form ["+initialType+", <string values...>].");
+        JsonNode purpose = json.get("statusPurpose");
+        if (purpose != null) {
+            if (!purpose.isTextual()) {
+                errors.add(errors.at(at, "statusPurpose"), "credentialStatus.statusPurpose must be a string.");
+            } else {
+                builder.statusPurpose(Interner.SHARED.string(purpose.asText()));
             }
+        }
+        JsonNode index = json.get("statusListIndex");
+        if (index != null) {
+            builder.statusListIndex(parseStatusListIndex(index, at, errors));
+        }
+        if (json.has("statusListCredential")) {
+            builder.statusListCredential(requireUri(
+                    json, "statusListCredential", "credentialStatus.statusListCredential", at, errors, true));
+        }
+        if (errors.size() != reported) {
+            return null;
+        }
+
+        CredentialStatus status = builder.build();
+        if (status.isStatusListEntry()
+                && !(status.getStatusListIndex().isPresent() && status.getStatusListCredential().isPresent())) {
+            errors.add(at, "credentialStatus of type " + status.getType() +
+                    " must define statusListIndex and statusListCredential.");
+            return null;
+        }
+        return status;
+    }
+
+    private static Long parseStatusListIndex(JsonNode index, String at, ValidationErrors errors) throws ParseError {
+        try {
+            long value = index.isIntegralNumber() ? index.asLong()
+                    : index.isTextual() ? Long.parseLong(index.asText()) : -1;
+            if (value >= 0) {
+                return value;
+            }
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        errors.add(errors.at(at, "statusListIndex"),
+                "credentialStatus.statusListIndex must be a non-negative integer. Got " + index);
+        return null;
+    }
+
+    private static String requireText(JsonNode json, String field, String name, String at, ValidationErrors errors)
+            throws ParseError {
+        JsonNode value = json.get(field);
+        if (value == null || !value.isTextual()) {
+            errors.add(errors.at(at, field), name + " must be a string.");
+            return null;
+        }
+        return value.asText();
+    }
+
+    private static URI requireUri(
+            JsonNode json, String field, String name, String at, ValidationErrors errors, boolean shared)
+            throws ParseError {
+        String v = requireText(json, field, name, at, errors);
+        if (v == null) {
+            return null;
+        }
+        URI uri = shared ? Interner.SHARED.absoluteUri(v) : absoluteUri(v);
+        if (uri == null) {
+            errors.add(errors.at(at, field), name + " must be a valid URI. Got " + v);
+        }
+        return uri;
+    }
+
+    static void decodeType(JsonNode json, Consumer<String> builder, String initialType, String at, ValidationErrors errors)
+            throws ParseError {
+        JsonNode types = json.get("type");
+        if (types == null || ! types.isArray() || types.size() == 0) {
+            errors.add(errors.at(at, "type"), typeError(initialType));
+            return;
+        }
+
+        JsonNode t0 = types.get(0);
+        if (t0.getNodeType() != JsonNodeType.STRING || !t0.asText().equals(initialType)) {
+            errors.add(errors.at(at, "type", 0), typeError(initialType));
+        } else {
             builder.accept(initialType);
+        }
 
-            for (int i = 1; i < types.size(); i++) {
-                JsonNode tn = types.get(i);
-                if (tn.getNodeType() != JsonNodeType.STRING) {
-                    throw new ParseError("type field must be an array of the form ["+initialType+", <string values...>].");
-                }
-                builder.accept(tn.asText());
+        for (int i = 1; i < types.size(); i++) {
+            JsonNode tn = types.get(i);
+            if (tn.getNodeType() != JsonNodeType.STRING) {
+                errors.add(errors.at(at, "type", i), typeError(initialType));
+            } else {
+                builder.accept(Interner.SHARED.string(tn.asText()));
             }
         }
     }
 
-    static void decodeContext(JsonNode json, Consumer<URI> builder) throws ParseError {
-        String v1 = "https://www.w3.org/2018/credentials/v1";
+    static void decodeContext(JsonNode json, Consumer<URI> builder, String at, ValidationErrors errors)
+            throws ParseError {
         JsonNode contextNode = json.get("@context");
-        if (contextNode.getNodeType() == JsonNodeType.STRING) {
+        if (contextNode == null) {
+            errors.add(errors.at(at, "@context"), contextError());
+        } else if (contextNode.getNodeType() == JsonNodeType.STRING) {
             if (contextNode.asText().equals(v1)) {
-                builder.accept(uri(v1));
+                builder.accept(Interner.V1);
             } else {
-                throw new ParseError("Context string must be " + v1);
+                errors.add(errors.at(at, "@context"), "Context string must be " + v1);
             }
-        }
-        else if (contextNode.isArray()) {
-            List<JsonNode> ctxs = toList(contextNode.elements());
-            if (ctxs.size() == 0) {
-                throw new ParseError(
-                        "context field must be an array of the form ["+v1+", <uris...>].");
-            } else if (ctxs.size() == 1) {
-                throw new ParseError(
-                        "context field must be an array of the form ["+v1+", <uris...>].");
+        } else if (contextNode.isArray()) {
+            if (contextNode.size() < 2) {
+                errors.add(errors.at(at, "@context"), contextError());
+                return;
             }
-            else {
-                JsonNode c0 = ctxs.get(0);
-                if (c0.getNodeType() != JsonNodeType.STRING || !c0.asText().equals(v1)) {
-                    throw new ParseError(
-                            "context field must be an array of the form ["+v1+", <uris...>].");
-                } else {
-                    builder.accept(uri(c0.asText()));
-                }
-                for (int i = 1; i < ctxs.size(); i++) {
-                    JsonNode c = ctxs.get(i);
-                    if (c.getNodeType() == JsonNodeType.STRING) {
-                        String v = c.asText();
-                        if (URICreator.isAbsoluteUri(v)) {
-                            builder.accept(uri(c.asText()));
-                        } else {
-                            throw new ParseError(v + " is not a valid URI");
-                        }
+            JsonNode c0 = contextNode.get(0);
+            if (c0.getNodeType() != JsonNodeType.STRING || !c0.asText().equals(v1)) {
+                errors.add(errors.at(at, "@context", 0), contextError());
+            } else {
+                builder.accept(Interner.V1);
+            }
+            for (int i = 1; i < contextNode.size(); i++) {
+                JsonNode c = contextNode.get(i);
+                if (c.getNodeType() == JsonNodeType.STRING) {
+                    URI uri = Interner.SHARED.absoluteUri(c.asText());
+                    if (uri != null) {
+                        builder.accept(uri);
+                    } else {
+                        errors.add(errors.at(at, "@context", i), c.asText() + " is not a valid URI");
                     }
                 }
             }
         } else {
-            throw new ParseError(
-                    "context field must be an array of the form ["+v1+", <uris...>].");
+            errors.add(errors.at(at, "@context"), contextError());
         }
     }
 
-    static <T> List<T> toList(Iterator<T> i) {
-        return toList(() -> i);
-    }
-
-    private static <T> List<T> toList(Iterable<T> i) {
-        return StreamSupport
-                .stream(i.spliterator(), false)
-                .collect(Collectors.toList());
-    }
-
-    static void decodeId(JsonNode json, Consumer<String> builder) throws ParseError {
+    static void decodeId(JsonNode json, Consumer<String> builder, String at, ValidationErrors errors)
+            throws ParseError {
         JsonNode idNode = json.get("id");
         if (idNode != null) {
             if (idNode.getNodeType() != JsonNodeType.STRING) {
-                throw new ParseError("value of id field must be a string.");
+                errors.add(errors.at(at, "id"), "value of id field must be a string.");
+            } else {
+                builder.accept(idNode.asText());
             }
-            builder.accept(idNode.asText());
         }
     }
 
-    private static void decodeIssuer(JsonNode json, VCBuilder builder) throws ParseError {
+    private static void decodeIssuer(JsonNode json, VCBuilder builder, String at, ValidationErrors errors)
+            throws ParseError {
         JsonNode issuer = json.get("issuer");
         if (issuer != null) {
             if (issuer.getNodeType() != JsonNodeType.STRING) {
-                throw new ParseError("issuer must be a string.");
+                errors.add(errors.at(at, "issuer"), "issuer must be a string.");
             } else {
-                String v = issuer.asText();
-                if (isAbsoluteUri(v)) {
-                    builder.issuer(uri(issuer.asText()));
+                URI uri = Interner.SHARED.absoluteUri(issuer.asText());
+                if (uri != null) {
+                    builder.issuer(uri);
                 } else {
-                    throw new ParseError("Issuer must a valid URI. Got " + v);
+                    errors.add(errors.at(at, "issuer"), "Issuer must a valid URI. Got " + issuer.asText());
                 }
             }
         } else {
-            throw new ParseError("issuer cannot be null");
+            errors.add(errors.at(at, "issuer"), "issuer cannot be null");
         }
     }
 
-    private static void decodeExpirationDate(JsonNode json, VCBuilder builder) throws ParseError {
+    private static void decodeExpirationDate(JsonNode json, VCBuilder builder, String at, ValidationErrors errors)
+            throws ParseError {
         JsonNode expirationDate = json.get("expirationDate");
         if (expirationDate != null) {
             if (expirationDate.getNodeType() != JsonNodeType.STRING) {
-                throw new ParseError("expirationDate must be a string.");
+                errors.add(errors.at(at, "expirationDate"), "expirationDate must be a string.");
             } else {
-                LocalDateTime exp = LocalDateTime.from(dfRfc3339.parse(expirationDate.asText()));
-                builder.expirationDate(exp);
+                builder.expirationDate(parseDate("expirationDate", expirationDate.asText(), at, errors));
             }
         }
     }
 
-    private static void decodeIssuanceDate(JsonNode json, VCBuilder builder) throws ParseError {
+    private static void decodeIssuanceDate(JsonNode json, VCBuilder builder, String at, ValidationErrors errors)
+            throws ParseError {
         JsonNode issuanceDate = json.get("issuanceDate");
         if (issuanceDate != null) {
             if (issuanceDate.getNodeType() != JsonNodeType.STRING) {
-                throw new ParseError("issuanceDate must be a string.");
+                errors.add(errors.at(at, "issuanceDate"), "issuanceDate must be a string.");
             } else {
-                LocalDateTime iss = LocalDateTime.from(dfRfc3339.parse(issuanceDate.asText()));
-                builder.issuanceDate(iss);
+                builder.issuanceDate(parseDate("issuanceDate", issuanceDate.asText(), at, errors));
             }
         } else {
-            throw new ParseError("issuer cannot be null");
+            errors.add(errors.at(at, "issuanceDate"), "issuanceDate cannot be null");
         }
     }
 
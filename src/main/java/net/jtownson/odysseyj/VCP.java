@@ -1,5 +1,6 @@
 package net.jtownson.odysseyj;
 
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
 import lombok.SneakyThrows;
 import picocli.CommandLine;
 import picocli.CommandLine.Parameters;
@@ -7,8 +8,27 @@ import picocli.CommandLine.Command;
 import picocli.CommandLine.Option;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileSystems;
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.spec.InvalidKeySpecException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
 
@@ -16,12 +36,43 @@ import static java.nio.charset.StandardCharsets.UTF_8;
         name = "vcp", mixinStandardHelpOptions = true)
 public class VCP implements Callable<Integer> {
 
-    @Parameters(index = "0", description = "The filename of the verfiable credential or presentation.")
-    private File file;
+    private static final long MAP_THRESHOLD = 64 * 1024;
+
+    @Parameters(arity = "0..*", description = "The filename of the verfiable credential or presentation. " +
+            "Several files, directories or glob patterns may be given to validate them in parallel.")
+    private List<String> files;
 
     @Option(names = {"-t", "--type"}, description = "VerifiableCredential or VerifiablePresentation")
     private String type = "VerifiableCredential";
 
+    @Option(names = {"-j", "--threads"}, description = "Worker threads used when validating several files. " +
+            "Defaults to the number of available processors.")
+    private int threads = Runtime.getRuntime().availableProcessors();
+
+    @Option(names = "--serve", description = "Stay running and answer line-delimited validation requests " +
+            "on stdin/stdout, or on a loopback socket if --port is given.")
+    private boolean serve;
+
+    @Option(names = "--port", description = "Loopback port to listen on with --serve.")
+    private Integer port;
+
+    @Option(names = "--alg", split = ",", description = "JWS algorithms accepted with --serve. Defaults to ${DEFAULT-VALUE}.")
+    private List<String> algs = Arrays.asList("ES256", "ES384", "ES512", "RS256", "EdDSA");
+
+    @Option(names = "--keys", description = "JWKS file or directory of PEM/JWK public keys used with --serve " +
+            "instead of fetching the JWS kid URL. Reloaded when the files change.")
+    private Path keys;
+
+    @Option(names = "--trusted-kid-prefix", split = ",", description = "With --serve and no --keys, fetch public " +
+            "keys from JWS kid URLs under one of these prefixes, e.g. https://issuer.example/keys/. Scheme, host and " +
+            "port must match exactly; list an http:// prefix to allow http. " +
+            "JWS requests are refused without --keys or a prefix.")
+    private List<String> trustedKidPrefixes;
+
+    @Option(names = "--match-key-file-names", description = "Also find PEM/DER files in --keys by the last path " +
+            "segment of the JWS kid, so any issuer's kid ending in issuer-1 uses issuer-1.pem.")
+    private boolean matchKeyFileNames;
+
     public static void main(String[] args) {
         int ret = new CommandLine(new VCP()).execute(args);
         System.exit(ret);
@@ -34,15 +85,61 @@ public class VCP implements Callable<Integer> {
 
     @Override
     public Integer call() {
+        if (!"VerifiableCredential".equals(type) && !"VerifiablePresentation".equals(type)) {
+            System.err.println("Illegal type argument: " + type +
+                    ". Require one of VerifiableCredential or VerifiablePresentation");
+            return 1;
+        }
+        if (serve) {
+            return serve();
+        }
+        if (files == null || files.isEmpty()) {
+            System.err.println("At least one file, directory or glob pattern is required.");
+            return 1;
+        }
+        if (files.size() == 1 && new File(files.get(0)).isFile()) {
+            return validateOne(new File(files.get(0)));
+        }
+        return validateAll();
+    }
+
+    private Integer serve() {
+        VCPServer server;
+        try {
+            if (keys != null) {
+                server = new VCPServer(algs, LocalPublicKeyResolver.builder()
+                        .path(keys)
+                        .watch(true)
+                        .matchFileNames(matchKeyFileNames)
+                        .build());
+            } else if (trustedKidPrefixes != null) {
+                server = new VCPServer(algs, trustedKidPrefixes);
+            } else {
+                server = new VCPServer(algs);
+            }
+        } catch (IOException | InvalidKeySpecException e) {
+            System.err.println("Unable to load keys from " + keys + ". Got an error: " + e.getMessage());
+            return 1;
+        }
+        try {
+            if (port == null) {
+                server.serve(System.in, System.out);
+            } else {
+                server.listen(port);
+            }
+            return 0;
+        } catch (IOException e) {
+            System.err.println("vcp server stopped. Got an error: " + e.getMessage());
+            return 1;
+        }
+    }
+
+    private Integer validateOne(File file) {
         try {
             if ("VerifiableCredential".equals(type)) {
                 VC.fromJsonLd(file);
-            } else if ("VerifiablePresentation".equals(type)) {
-                VP.fromJsonLd(file);
             } else {
-                System.err.println("Illegal type argument: " + type +
-                        ". Require one of VerifiableCredential or VerifiablePresentation");
-                return 1;
+                VP.fromJsonLd(file);
             }
             cat(file);
             return 0;
@@ -51,4 +148,138 @@ public class VCP implements Callable<Integer> {
             return 1;
         }
     }
+
+    private Integer validateAll() {
+        List<Path> paths;
+        try {
+            paths = expand(files);
+        } catch (IOException e) {
+            System.err.println("Unable to list files. Got an error: " + e.getMessage());
+            return 1;
+        }
+
+        long start = System.nanoTime();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threads));
+        List<Future<Result>> results = new ArrayList<>(paths.size());
+        try {
+            for (Path path : paths) {
+                results.add(executor.submit(() -> validate(path)));
+            }
+            int failed = 0;
+            long bytes = 0;
+            for (Future<Result> f : results) {
+                Result result = await(f);
+                bytes += result.bytes;
+                if (result.error == null) {
+                    System.out.println("PASS " + result.path);
+                } else {
+                    failed++;
+                    System.out.println("FAIL " + result.path + ": " + result.error);
+                }
+            }
+            double seconds = Math.max(System.nanoTime() - start, 1) / 1e9;
+            System.out.printf("%d files, %d passed, %d failed in %.3f s (%.1f files/s, %.2f MB/s)%n",
+                    paths.size(), paths.size() - failed, failed, seconds,
+                    paths.size() / seconds, bytes / seconds / (1024 * 1024));
+            return failed == 0 && !paths.isEmpty() ? 0 : 1;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private Result validate(Path path) {
+        long size = 0;
+        try {
+            size = Files.size(path);
+            try (InputStream json = open(path, size)) {
+                if ("VerifiableCredential".equals(type)) {
+                    CodecContext.DEFAULT.decodeVc(json);
+                } else {
+                    CodecContext.DEFAULT.decodeVp(json);
+                }
+            }
+            return new Result(path, size, null);
+        } catch (ParseError | IOException | RuntimeException e) {
+            return new Result(path, size, e.getMessage());
+        }
+    }
+
+    private static InputStream open(Path path, long size) throws IOException {
+        if (size < MAP_THRESHOLD) {
+            return Files.newInputStream(path);
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            return new ByteBufferBackedInputStream(buffer);
+        }
+    }
+
+    static List<Path> expand(List<String> patterns) throws IOException {
+        List<Path> paths = new ArrayList<>();
+        for (String pattern : patterns) {
+            Path path = Paths.get(pattern);
+            if (Files.isDirectory(path)) {
+                paths.addAll(walk(path, Integer.MAX_VALUE, p -> isJson(p.getFileName().toString())));
+            } else if (isGlob(pattern)) {
+                int baseLength = pattern.lastIndexOf('/', firstGlobChar(pattern)) + 1;
+                Path base = Paths.get(pattern.substring(0, baseLength));
+                PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + pattern);
+                paths.addAll(walk(base, globDepth(pattern.substring(baseLength)), matcher::matches));
+            } else {
+                paths.add(path);
+            }
+        }
+        return paths;
+    }
+
+    private static List<Path> walk(Path base, int maxDepth, PathMatcher filter) throws IOException {
+        try (Stream<Path> walk = Files.walk(base, maxDepth)) {
+            return walk.filter(Files::isRegularFile).filter(filter::matches).sorted().collect(Collectors.toList());
+        }
+    }
+
+    private static boolean isJson(String name) {
+        return name.endsWith(".json") || name.endsWith(".jsonld");
+    }
+
+    private static boolean isGlob(String pattern) {
+        return pattern.matches(".*[*?\\[{].*");
+    }
+
+    /**
+     * Only ** crosses directories, so any other glob matches no deeper than its own segments.
+     */
+    private static int globDepth(String glob) {
+        return glob.contains("**") ? Integer.MAX_VALUE : glob.split("/", -1).length;
+    }
+
+    private static int firstGlobChar(String pattern) {
+        for (int i = 0; i < pattern.length(); i++) {
+            if ("*?[{".indexOf(pattern.charAt(i)) >= 0) {
+                return i;
+            }
+        }
+        return pattern.length();
+    }
+
+    @SneakyThrows
+    private static Result await(Future<Result> f) {
+        try {
+            return f.get();
+        } catch (ExecutionException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static class Result {
+        private final Path path;
+        private final long bytes;
+        private final String error;
+
+        private Result(Path path, long bytes, String error) {
+            this.path = path;
+            this.bytes = bytes;
+            this.error = error;
+        }
+    }
 }
@@ -0,0 +1,159 @@
+package net.jtownson.odysseyj;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Answers validation requests from a warm JVM, one line in, one line out, over stdin/stdout or a loopback socket.
+ * <pre>
+ *   request:  vc|vp &lt;file path or single-line JSON&gt;
+ *             vc-jws|vp-jws &lt;file path or compact JWS&gt;
+ *             ping
+ *   response: OK [decoded JSON, for JWS requests]
+ *             FAIL &lt;message&gt;
+ * </pre>
+ * Codecs, resolved public keys and verified tokens are shared across all requests and connections. Keys are
+ * looked up in a {@link LocalPublicKeyResolver}, or read from JWS kid URLs that start with a trusted prefix.
+ * Without either, JWS requests are refused.
+ */
+class VCPServer {
+
+    private static final Pattern compactJws = Pattern.compile("[A-Za-z0-9_-]+\\.[A-Za-z0-9_-]*\\.[A-Za-z0-9_-]+");
+
+    private final VerifiedJwsCache verifiedJwsCache;
+    private final JwsVerifier verifier;
+
+    VCPServer(List<String> algWhitelist) {
+        this(algWhitelist, null, null);
+    }
+
+    VCPServer(List<String> algWhitelist, List<String> trustedKidPrefixes) {
+        this(algWhitelist, CachingPublicKeyResolver.of(new UrlPublicKeyResolver(trustedKidPrefixes)));
+    }
+
+    VCPServer(List<String> algWhitelist, CachingPublicKeyResolver publicKeyResolver) {
+        this(algWhitelist, publicKeyResolver, VerifiedJwsCache.of(publicKeyResolver));
+    }
+
+    VCPServer(List<String> algWhitelist, LocalPublicKeyResolver publicKeyResolver) {
+        this(algWhitelist, publicKeyResolver, VerifiedJwsCache.builder().build());
+        publicKeyResolver.addReloadListener(verifiedJwsCache::invalidateAll);
+    }
+
+    private VCPServer(List<String> algWhitelist, PublicKeyResolver publicKeyResolver, VerifiedJwsCache verifiedJwsCache) {
+        this.verifiedJwsCache = verifiedJwsCache;
+        this.verifier = publicKeyResolver == null ? null : JwsVerifier.builder()
+                .algWhitelist(algWhitelist)
+                .publicKeyResolver(publicKeyResolver)
+                .executor(Runnable::run)
+                .verifiedJwsCache(verifiedJwsCache)
+                .build();
+    }
+
+    void listen(int port) throws IOException {
+        AtomicInteger count = new AtomicInteger();
+        ExecutorService connections = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "vcp-connection-" + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        try (ServerSocket server = new ServerSocket(port, 50, InetAddress.getLoopbackAddress())) {
+            System.err.println("vcp listening on " + server.getLocalSocketAddress());
+            while (true) {
+                Socket socket = server.accept();
+                connections.execute(() -> {
+                    try (Socket s = socket) {
+                        s.setTcpNoDelay(true);
+                        serve(s.getInputStream(), s.getOutputStream());
+                    } catch (IOException e) {
+                        System.err.println("vcp connection closed: " + e.getMessage());
+                    }
+                });
+            }
+        } finally {
+            connections.shutdown();
+        }
+    }
+
+    void serve(InputStream in, OutputStream out) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, UTF_8));
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isEmpty()) {
+                continue;
+            }
+            writer.write(handle(line));
+            writer.write('\n');
+            writer.flush();
+        }
+    }
+
+    String handle(String line) {
+        int space = line.indexOf(' ');
+        String command = space < 0 ? line : line.substring(0, space);
+        String argument = space < 0 ? "" : line.substring(space + 1).trim();
+        try {
+            switch (command) {
+                case "ping":
+                    return "OK";
+                case "vc":
+                    CodecContext.DEFAULT.decodeVc(json(argument));
+                    return "OK";
+                case "vp":
+                    CodecContext.DEFAULT.decodeVp(json(argument));
+                    return "OK";
+                case "vc-jws":
+                    requireKeys();
+                    VC vc = VC.fromJws(jws(argument), verifier).get();
+                    return "OK " + new String(CodecContext.DEFAULT.encode(vc), UTF_8);
+                case "vp-jws":
+                    requireKeys();
+                    VP vp = VP.fromJws(jws(argument), verifier).get();
+                    return "OK " + new String(CodecContext.DEFAULT.encode(vp), UTF_8);
+                default:
+                    return "FAIL Unknown request " + command + ". Expected one of vc, vp, vc-jws, vp-jws or ping.";
+            }
+        } catch (NoSuchFileException e) {
+            return "FAIL No such file " + e.getFile();
+        } catch (Exception e) {
+            Throwable cause = CachingPublicKeyResolver.unwrap(e);
+            return "FAIL " + String.valueOf(cause.getMessage()).replace('\n', ' ').replace('\r', ' ');
+        }
+    }
+
+    private void requireKeys() throws KeyResolutionError {
+        if (verifier == null) {
+            throw new KeyResolutionError("No trusted keys. Start the daemon with --keys or --trusted-kid-prefix.");
+        }
+    }
+
+    private static byte[] json(String argument) throws IOException {
+        return argument.startsWith("{") ? argument.getBytes(UTF_8) : Files.readAllBytes(Paths.get(argument));
+    }
+
+    private static String jws(String argument) throws IOException {
+        return compactJws.matcher(argument).matches()
+                ? argument
+                : new String(Files.readAllBytes(Paths.get(argument)), UTF_8).trim();
+    }
+}
@@ -8,6 +8,10 @@ import java.io.File;
 import java.net.URI;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
 
 @Data
 @Builder
@@ -29,6 +33,52 @@ public class VP {
         return Optional.ofNullable(holder);
     }
 
+    /**
+     * Signs a presentation of credentials that are already JWS serializations, e.g. from {@link VC#jwsBuilder()}.
+     */
+    @Builder(builderMethodName = "jwsBuilder")
+    public static String toJws(
+            @Singular List<String> additionalTypes,
+            @Singular List<URI> additionalContexts,
+            @Singular List<String> verifiableCredentials,
+            String id,
+            URI holder,
+            SignatureDefinition signatureDefinition) {
+
+        VP vp = VP.builder()
+                .context(Interner.V1)
+                .contexts(additionalContexts)
+                .type("VerifiablePresentation")
+                .types(additionalTypes)
+                .id(id)
+                .holder(holder)
+                .build();
+        return JwsCodec.encodeVpJws(
+                signatureDefinition.getPrivateKey(),
+                signatureDefinition.getPublicKeyRef(),
+                signatureDefinition.getAlg(),
+                vp,
+                verifiableCredentials);
+    }
+
+    public static CompletableFuture<VP> fromJws(
+            List<String> algWhitelist, PublicKeyResolver publicKeyResolver, String jwsSer) {
+        return fromJws(algWhitelist, publicKeyResolver, jwsSer, ForkJoinPool.commonPool());
+    }
+
+    public static CompletableFuture<VP> fromJws(
+            List<String> algWhitelist, PublicKeyResolver publicKeyResolver, String jwsSer, Executor executor) {
+        return JwsCodec.decodeVpJws(algWhitelist, publicKeyResolver, jwsSer, executor);
+    }
+
+    /**
+     * Verifies the presentation with the verifier's keys, applying its cache, status list checker and temporal
+     * validator to each embedded credential.
+     */
+    public static CompletableFuture<VP> fromJws(String jwsSer, JwsVerifier verifier) {
+        return verifier.verifyPresentation(jwsSer);
+    }
+
     public static VP fromJsonLd(File jsonLdFile) throws ParseError {
         return VPJsonCodec.decode(jsonLdFile);
     }
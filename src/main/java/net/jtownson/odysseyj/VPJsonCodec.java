@@ -5,19 +5,27 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.JsonNodeType;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import lombok.SneakyThrows;
+import net.jtownson.odysseyj.MetricsListener.Outcome;
+import net.jtownson.odysseyj.MetricsListener.Stage;
 
 import java.io.File;
-import java.io.IOException;
-import java.util.List;
+import java.net.URI;
 
-import static net.jtownson.odysseyj.URICreator.isAbsoluteUri;
-import static net.jtownson.odysseyj.URICreator.uri;
+import static net.jtownson.odysseyj.URICreator.absoluteUri;
 import static net.jtownson.odysseyj.VCJsonCodec.*;
 
 public class VPJsonCodec {
 
     public static JsonNode encode(VP vp) {
-        ObjectMapper objectMapper = new ObjectMapper();
+        long start = Metrics.start();
+        JsonNode json = encodeNode(vp);
+        Metrics.record(Stage.VP_ENCODE, start, -1, null);
+        return json;
+    }
+
+    private static ObjectNode encodeNode(VP vp) {
+        ObjectMapper objectMapper = CodecContext.DEFAULT.getObjectMapper();
         ObjectNode json = objectMapper.createObjectNode();
         putContext(vp.getContexts(), objectMapper, json);
         putType(vp.getTypes(), objectMapper, json);
@@ -25,7 +33,7 @@ public class VPJsonCodec {
         putHolder(vp, json);
         putProof(objectMapper, json);
         ArrayNode verifiableCredentialNode = objectMapper.createArrayNode();
-        vp.getVerifiableCredentials().forEach(vc -> verifiableCredentialNode.add(VCJsonCodec.encode(vc)));
+        vp.getVerifiableCredentials().forEach(vc -> verifiableCredentialNode.add(VCJsonCodec.encodeNode(vc)));
         json.set("verifiableCredential", verifiableCredentialNode);
         return json;
     }
@@ -39,55 +47,92 @@ public class VPJsonCodec {
     }
 
     public static VP decode(JsonNode json) throws ParseError {
+        long start = Metrics.start();
+        try {
+            VP vp = decodeNode(json);
+            Metrics.record(Stage.VP_DECODE, start, -1, null);
+            return vp;
+        } catch (ParseError | RuntimeException e) {
+            Metrics.record(Stage.VP_DECODE, start, -1, e);
+            throw e;
+        }
+    }
+
+    /**
+     * Validates the presentation and its credentials, reporting every structural error rather than
+     * stopping at the first.
+     */
+    @SneakyThrows
+    public static ValidationResult<VP> validate(JsonNode json) {
+        long start = Metrics.start();
+        ValidationErrors errors = ValidationErrors.collecting();
+        VP vp = decodeNode(json, errors);
+        Metrics.recordOutcome(Stage.VP_DECODE, start, -1, vp == null ? Outcome.PARSE_ERROR : Outcome.SUCCESS);
+        return errors.result(vp);
+    }
+
+    private static VP decodeNode(JsonNode json) throws ParseError {
+        return decodeNode(json, ValidationErrors.FAIL_FAST);
+    }
+
+    private static VP decodeNode(JsonNode json, ValidationErrors errors) throws ParseError {
         VP.VPBuilder builder = VP.builder();
-        decodeId(json, builder::id);
-        decodeType(json, builder::type, "VerifiablePresentation");
-        decodeContext(json, builder::context);
-        decodeHolder(json, builder);
-        decodeVerifiableCredential(json, builder);
-        decodeProof(json);
-        return builder.build();
+        decodeId(json, builder::id, "", errors);
+        decodeType(json, builder::type, "VerifiablePresentation", "", errors);
+        decodeContext(json, builder::context, "", errors);
+        decodeHolder(json, builder, "", errors);
+        decodeVerifiableCredential(json, builder, errors);
+        decodeProof(json, errors);
+        return errors.size() == 0 ? builder.build() : null;
     }
 
-    private static void decodeProof(JsonNode json) throws ParseError {
+    private static void decodeProof(JsonNode json, ValidationErrors errors) throws ParseError {
         JsonNode proofNode = json.get("proof");
         if (proofNode == null) {
-            throw new ParseError("Proof node must be defined (questionable w3c testcase).");
+            errors.add("/proof", "Proof node must be defined (questionable w3c testcase).");
         }
     }
-    private static void decodeVerifiableCredential(JsonNode json, VP.VPBuilder builder) throws ParseError {
+
+    private static void decodeVerifiableCredential(JsonNode json, VP.VPBuilder builder, ValidationErrors errors)
+            throws ParseError {
         JsonNode vcNode = json.get("verifiableCredential");
-        if (vcNode.getNodeType() == JsonNodeType.OBJECT) {
-            VC vc = VCJsonCodec.decode(vcNode);
-            builder.verifiableCredential(vc);
+        if (vcNode == null) {
+            errors.add("/verifiableCredential", "verifiableCredential must be defined.");
+        } else if (vcNode.getNodeType() == JsonNodeType.OBJECT) {
+            VC vc = VCJsonCodec.decodeNode(vcNode, errors.at("", "verifiableCredential"), errors);
+            if (vc != null) {
+                builder.verifiableCredential(vc);
+            }
         } else if (vcNode.getNodeType() == JsonNodeType.ARRAY) {
-            List<JsonNode> vcNodes = toList(vcNode.elements());
-            for (JsonNode vcn : vcNodes) {
+            for (int i = 0; i < vcNode.size(); i++) {
+                JsonNode vcn = vcNode.get(i);
+                String at = errors.at("", "verifiableCredential", i);
                 if (vcn.getNodeType() == JsonNodeType.OBJECT) {
-                    builder.verifiableCredential(VCJsonCodec.decode(vcn));
+                    VC vc = VCJsonCodec.decodeNode(vcn, at, errors);
+                    if (vc != null) {
+                        builder.verifiableCredential(vc);
+                    }
                 } else {
-                    throw new ParseError("Invalid object type for verifiableCredential element: " + vcNode.getNodeType());
+                    errors.add(at, "Invalid object type for verifiableCredential element: " + vcNode.getNodeType());
                 }
             }
         }
     }
 
-    private static void decodeHolder(JsonNode json, VP.VPBuilder builder) throws ParseError {
+    static void decodeHolder(JsonNode json, VP.VPBuilder builder, String at, ValidationErrors errors)
+            throws ParseError {
         JsonNode holderNode = json.get("holder");
         if (holderNode != null) {
-            if (holderNode.getNodeType() != JsonNodeType.STRING || ! isAbsoluteUri(holderNode.asText())) {
-                throw new ParseError("holder must be a valid URI");
+            URI holder = holderNode.getNodeType() == JsonNodeType.STRING ? absoluteUri(holderNode.asText()) : null;
+            if (holder == null) {
+                errors.add(errors.at(at, "holder"), "holder must be a valid URI");
+            } else {
+                builder.holder(holder);
             }
-            builder.holder(uri(holderNode.asText()));
         }
     }
 
     public static VP decode(File jsonLdFile) throws ParseError {
-        ObjectMapper objectMapper = new ObjectMapper();
-        try {
-            return decode(objectMapper.readTree(jsonLdFile));
-        } catch (IOException e) {
-            throw new ParseError("Unable to parse json. Caught an IOException: " + e.getMessage());
-        }
+        return CodecContext.DEFAULT.decodeVp(jsonLdFile);
     }
 }
@@ -0,0 +1,18 @@
+package net.jtownson.odysseyj;
+
+import lombok.Data;
+
+/**
+ * A structural problem found in a credential or presentation, located by a JSON pointer (RFC 6901)
+ * relative to the validated document. The pointer is empty when the problem is with the document as a whole.
+ */
+@Data
+public class ValidationError {
+    private final String pointer;
+    private final String message;
+
+    @Override
+    public String toString() {
+        return (pointer.isEmpty() ? "/" : pointer) + ": " + message;
+    }
+}
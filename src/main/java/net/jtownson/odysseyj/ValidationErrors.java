@@ -0,0 +1,55 @@
+package net.jtownson.odysseyj;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Where the codecs report structural errors. {@link #FAIL_FAST} throws a {@link ParseError} at the first
+ * error, which is how the decode methods behave; a collecting instance records every error and lets the
+ * codec carry on, so callers must stop using a value once they have reported a problem with it.
+ * Pointers are only built when collecting.
+ */
+class ValidationErrors {
+
+    static final ValidationErrors FAIL_FAST = new ValidationErrors(null);
+
+    private final List<ValidationError> errors;
+
+    private ValidationErrors(List<ValidationError> errors) {
+        this.errors = errors;
+    }
+
+    static ValidationErrors collecting() {
+        return new ValidationErrors(new ArrayList<>());
+    }
+
+    void add(String pointer, String message) throws ParseError {
+        if (errors == null) {
+            throw new ParseError(message);
+        }
+        errors.add(new ValidationError(pointer, message));
+    }
+
+    int size() {
+        return errors == null ? 0 : errors.size();
+    }
+
+    List<ValidationError> getErrors() {
+        return errors;
+    }
+
+    String at(String pointer, String field) {
+        if (errors == null) {
+            return pointer;
+        }
+        return pointer + "/" + field.replace("~", "~0").replace("/", "~1");
+    }
+
+    String at(String pointer, String field, int index) {
+        return errors == null ? pointer : at(pointer, field) + "/" + index;
+    }
+
+    <T> ValidationResult<T> result(T value) {
+        return errors.isEmpty() ? ValidationResult.valid(value) : ValidationResult.invalid(errors);
+    }
+}
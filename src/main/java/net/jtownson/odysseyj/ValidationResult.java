@@ -0,0 +1,56 @@
+package net.jtownson.odysseyj;
+
+import java.util.List;
+import java.util.Optional;
+
+import static java.util.Collections.emptyList;
+import static java.util.Collections.unmodifiableList;
+
+/**
+ * The outcome of validating a document: the decoded value, or every {@link ValidationError} found in it.
+ */
+public class ValidationResult<T> {
+
+    private final T value;
+    private final List<ValidationError> errors;
+
+    private ValidationResult(T value, List<ValidationError> errors) {
+        this.value = value;
+        this.errors = errors;
+    }
+
+    static <T> ValidationResult<T> valid(T value) {
+        return new ValidationResult<>(value, emptyList());
+    }
+
+    static <T> ValidationResult<T> invalid(List<ValidationError> errors) {
+        return new ValidationResult<>(null, unmodifiableList(errors));
+    }
+
+    public boolean isValid() {
+        return errors.isEmpty();
+    }
+
+    public Optional<T> getValue() {
+        return Optional.ofNullable(value);
+    }
+
+    public List<ValidationError> getErrors() {
+        return errors;
+    }
+
+    /**
+     * @return the value, or throws a {@link ParseError} with the first error's message.
+     */
+    public T get() throws ParseError {
+        if (!errors.isEmpty()) {
+            throw new ParseError(errors.get(0).getMessage());
+        }
+        return value;
+    }
+
+    @Override
+    public String toString() {
+        return isValid() ? "Valid(" + value + ")" : "Invalid" + errors;
+    }
+}
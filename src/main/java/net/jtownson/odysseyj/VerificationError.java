@@ -1,7 +1,16 @@
 package net.jtownson.odysseyj;
 
+/**
+ * Base of the errors reported when a credential or presentation fails verification. Subclasses raised
+ * for routine rejections of untrusted input pass {@code stackTrace = false}, since capturing a stack
+ * trace costs more than the parsing or checking that found the problem.
+ */
 public abstract class VerificationError extends Exception {
     public VerificationError(String message) {
         super(message);
     }
+
+    protected VerificationError(String message, boolean stackTrace) {
+        super(message, null, false, stackTrace);
+    }
 }
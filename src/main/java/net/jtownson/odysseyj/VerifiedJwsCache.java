@@ -0,0 +1,285 @@
+package net.jtownson.odysseyj;
+
+import lombok.Builder;
+import lombok.SneakyThrows;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.security.MessageDigest;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Remembers credentials that have already passed JWS verification, keyed by a digest of the JWS and algorithm
+ * whitelist. Cached credentials are shared, so must not be modified.
+ */
+public class VerifiedJwsCache {
+
+    private static final int DEFAULT_MAXIMUM_SIZE = 10_000;
+    private static final Duration DEFAULT_MAXIMUM_AGE = CachingPublicKeyResolver.DEFAULT_TTL;
+    private static final long DEFAULT_MAXIMUM_WEIGHT = 64L * 1024 * 1024;
+    private static final int ENTRY_OVERHEAD = 256;
+    private static final int DECODED_BYTES_PER_CHAR = 4;
+
+    private static final ThreadLocal<MessageDigest> sha256 = ThreadLocal.withInitial(VerifiedJwsCache::newDigest);
+
+    private final int maximumSize;
+    private final long maximumWeight;
+    private final long maximumAgeMillis;
+    private final Clock clock;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, Set<Key>> keysByKid = new HashMap<>();
+    private final Map<String, Long> invalidatedKids = new HashMap<>();
+    private long weight;
+    private long generation;
+    private long invalidatedAll;
+
+    @Builder
+    private VerifiedJwsCache(
+            Integer maximumSize,
+            Long maximumWeight,
+            Duration maximumAge,
+            Clock clock,
+            CachingPublicKeyResolver publicKeyResolver) {
+
+        this.maximumSize = maximumSize == null ? DEFAULT_MAXIMUM_SIZE : maximumSize;
+        this.maximumWeight = maximumWeight == null ? DEFAULT_MAXIMUM_WEIGHT : maximumWeight;
+        this.maximumAgeMillis = (maximumAge != null ? maximumAge
+                : publicKeyResolver != null ? publicKeyResolver.getTtl()
+                : DEFAULT_MAXIMUM_AGE).toMillis();
+        this.clock = clock == null ? Clock.systemUTC() : clock;
+        if (this.maximumSize < 1) {
+            throw new IllegalArgumentException("maximumSize must be at least 1. Got " + maximumSize);
+        }
+        if (this.maximumWeight < 1) {
+            throw new IllegalArgumentException("maximumWeight must be at least 1. Got " + maximumWeight);
+        }
+        if (this.maximumAgeMillis < 1) {
+            throw new IllegalArgumentException("maximumAge must be positive. Got " + maximumAge);
+        }
+        if (publicKeyResolver != null) {
+            publicKeyResolver.addRemovalListener(this::invalidateKid);
+        }
+    }
+
+    public static VerifiedJwsCache of(CachingPublicKeyResolver publicKeyResolver) {
+        return builder().publicKeyResolver(publicKeyResolver).build();
+    }
+
+    /**
+     * @return the credential previously verified from this serialization under the same whitelist,
+     * or null if there is none or it has expired.
+     */
+    public VC get(List<String> algWhitelist, String jwsSer) {
+        return get(key(algWhitelist, jwsSer));
+    }
+
+    public void invalidateKid(String kid) {
+        kid = normalize(kid);
+        synchronized (entries) {
+            invalidatedKids.put(kid, ++generation);
+            if (invalidatedKids.size() > maximumSize) {
+                invalidatedKids.clear();
+                invalidatedAll = generation;
+            }
+            Set<Key> keys = keysByKid.remove(kid);
+            if (keys != null) {
+                for (Key key : keys) {
+                    weight -= entries.remove(key).weight;
+                }
+            }
+        }
+    }
+
+    public void invalidateAll() {
+        synchronized (entries) {
+            invalidatedAll = ++generation;
+            invalidatedKids.clear();
+            entries.clear();
+            keysByKid.clear();
+            weight = 0;
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public long getWeight() {
+        synchronized (entries) {
+            return weight;
+        }
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    Key key(List<String> algWhitelist, String jwsSer) {
+        MessageDigest digest = sha256.get();
+        for (String alg : algWhitelist) {
+            digest.update(alg.getBytes(UTF_8));
+            digest.update((byte) 0);
+        }
+        digest.update((byte) 0);
+        digest.update(jwsSer.getBytes(UTF_8));
+        long generation;
+        synchronized (entries) {
+            generation = this.generation;
+        }
+        return new Key(digest.digest(), jwsSer.length(), generation);
+    }
+
+    VC get(Key key) {
+        long now = clock.millis();
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                if (now < entry.expiresAt) {
+                    hits.increment();
+                    return entry.vc;
+                }
+                remove(key, entry);
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * Caches a verified credential unless its kid was invalidated after the key was taken, since the
+     * credential may then have been verified with a key that has since been removed.
+     */
+    void put(Key key, String kid, VC vc) {
+        kid = normalize(kid);
+        long now = clock.millis();
+        long expiresAt = vc.getExpirationDate()
+                .map(exp -> exp.toInstant(ZoneOffset.UTC).toEpochMilli())
+                .map(exp -> Math.min(exp, now + maximumAgeMillis))
+                .orElse(now + maximumAgeMillis);
+        if (expiresAt <= now) {
+            return;
+        }
+        Entry entry = new Entry(vc, kid, expiresAt, (long) key.length * DECODED_BYTES_PER_CHAR + ENTRY_OVERHEAD);
+        if (entry.weight > maximumWeight) {
+            return;
+        }
+        synchronized (entries) {
+            if (key.generation < Math.max(invalidatedAll, invalidatedKids.getOrDefault(kid, 0L))) {
+                return;
+            }
+            Entry previous = entries.remove(key);
+            if (previous != null) {
+                unindex(key, previous);
+            }
+            entries.put(key, entry);
+            weight += entry.weight;
+            keysByKid.computeIfAbsent(kid, k -> new HashSet<>()).add(key);
+            evict();
+        }
+    }
+
+    private void evict() {
+        Iterator<Map.Entry<Key, Entry>> eldest = entries.entrySet().iterator();
+        while ((entries.size() > maximumSize || weight > maximumWeight) && eldest.hasNext()) {
+            Map.Entry<Key, Entry> next = eldest.next();
+            eldest.remove();
+            unindex(next.getKey(), next.getValue());
+            evictions.increment();
+        }
+    }
+
+    private void remove(Key key, Entry entry) {
+        entries.remove(key);
+        unindex(key, entry);
+    }
+
+    private void unindex(Key key, Entry entry) {
+        weight -= entry.weight;
+        Set<Key> keys = keysByKid.get(entry.kid);
+        if (keys != null && keys.remove(key) && keys.isEmpty()) {
+            keysByKid.remove(entry.kid);
+        }
+    }
+
+    /**
+     * Kids are indexed as {@link CachingPublicKeyResolver} reports them, i.e. as {@link URL#toString()}.
+     */
+    private static String normalize(String kid) {
+        try {
+            return new URL(kid).toString();
+        } catch (MalformedURLException e) {
+            return kid;
+        }
+    }
+
+    @SneakyThrows
+    private static MessageDigest newDigest() {
+        return MessageDigest.getInstance("SHA-256");
+    }
+
+    static final class Key {
+        private final byte[] digest;
+        private final int hash;
+        private final int length;
+        private final long generation;
+
+        private Key(byte[] digest, int length, long generation) {
+            this.digest = digest;
+            this.hash = Arrays.hashCode(digest);
+            this.length = length;
+            this.generation = generation;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key && Arrays.equals(digest, ((Key) o).digest);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private static final class Entry {
+        private final VC vc;
+        private final String kid;
+        private final long expiresAt;
+        private final long weight;
+
+        private Entry(VC vc, String kid, long expiresAt, long weight) {
+            this.vc = vc;
+            this.kid = kid;
+            this.expiresAt = expiresAt;
+            this.weight = weight;
+        }
+    }
+}
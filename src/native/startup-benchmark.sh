@@ -0,0 +1,73 @@
+#!/usr/bin/env bash
+# Wall time to first result of the fat-jar JVM and the native image, run one process per file
+# over the same sample files.
+#
+#   src/native/startup-benchmark.sh [-n runs] [files...]
+#
+# Build both first: mvn clean package, then mvn -Pnative package. With no files a sample credential is used.
+set -euo pipefail
+
+dir="$( cd "$( dirname "${BASH_SOURCE[0]}" )/../.." >/dev/null 2>&1 && pwd )"
+jar="$dir/target/odysseyj-1.0-SNAPSHOT-jar-with-dependencies.jar"
+native="$dir/target/vcp"
+
+runs=10
+if [[ "${1:-}" == "-n" ]]; then
+    runs="$2"
+    shift 2
+fi
+
+files=("$@")
+if [[ ${#files[@]} -eq 0 ]]; then
+    sample="$(mktemp -t vcp-sample.XXXXXX)"
+    trap 'rm -f "$sample"' EXIT
+    cat > "$sample" <<'JSON'
+{"@context": ["https://www.w3.org/2018/credentials/v1", "https://www.w3.org/2018/credentials/examples/v1"],
+ "id": "http://example.edu/credentials/1872",
+ "type": ["VerifiableCredential", "AlumniCredential"],
+ "issuer": "https://example.edu/issuers/565049",
+ "issuanceDate": "2010-01-01T19:23:24Z",
+ "credentialSubject": {"id": "did:example:ebfeb1f712ebc6f1c276e12ec21", "alumniOf": "Example University"}}
+JSON
+    files=("$sample")
+fi
+
+# Sets now to the time in milliseconds. Bash 5 reads the clock without starting a process.
+now_ms() {
+    if [[ -n "${EPOCHREALTIME:-}" ]]; then
+        local micros="${EPOCHREALTIME/[.,]/}"
+        now=$(( 10#$micros / 1000 ))
+    else
+        now=$(( $(date +%s%N) / 1000000 ))
+    fi
+}
+
+measure() {
+    local label="$1"
+    shift
+    local total=0 min=999999 now start elapsed
+    for ((i = 0; i < runs; i++)); do
+        for file in "${files[@]}"; do
+            now_ms
+            start=$now
+            "$@" "$file" > /dev/null
+            now_ms
+            elapsed=$(( now - start ))
+            total=$(( total + elapsed ))
+            (( elapsed < min )) && min=$elapsed
+        done
+    done
+    local n=$(( runs * ${#files[@]} ))
+    printf '%-8s %4d runs  mean %5d ms  min %5d ms\n' "$label" "$n" $(( total / n )) "$min"
+}
+
+if [[ -f "$jar" ]]; then
+    measure jvm java -cp "$jar" net.jtownson.odysseyj.VCP
+else
+    echo "jvm      skipped: $jar not found (mvn package)"
+fi
+if [[ -x "$native" ]]; then
+    measure native "$native"
+else
+    echo "native   skipped: $native not found (mvn -Pnative package)"
+fi
@@ -0,0 +1,187 @@
+package net.jtownson.odysseyj;
+
+import org.junit.Test;
+
+import java.net.URL;
+import java.security.PublicKey;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.util.Arrays.asList;
+import static net.jtownson.odysseyj.URICreator.url;
+import static org.junit.Assert.*;
+
+public class CachingPublicKeyResolverTest {
+
+    private final URL keyA = url("https://example.com/keys/a");
+    private final URL keyB = url("https://example.com/keys/b");
+    private final URL keyC = url("https://example.com/keys/c");
+
+    private final AtomicInteger calls = new AtomicInteger();
+    private final AtomicLong clock = new AtomicLong();
+
+    @Test
+    public void coalescesConcurrentLookupsIntoOneDelegateCall() throws Exception {
+        CompletableFuture<PublicKey> pending = new CompletableFuture<>();
+        CachingPublicKeyResolver resolver = CachingPublicKeyResolver.of(ref -> {
+            calls.incrementAndGet();
+            return pending;
+        });
+
+        CompletableFuture<PublicKey> f1 = resolver.resolvePublicKey(keyA);
+        CompletableFuture<PublicKey> f2 = resolver.resolvePublicKey(keyA);
+        CompletableFuture<PublicKey> cancelled = resolver.resolvePublicKey(keyA);
+        cancelled.cancel(false);
+        PublicKey publicKey = KeyFoo.getPublicKeyFromRef(KeyFoo.getKeyPair().getPublicKeyRef());
+        pending.complete(publicKey);
+
+        assertSame(publicKey, f1.get());
+        assertSame(publicKey, f2.get());
+        resolver.resolvePublicKey(keyA).complete(null);
+        assertSame(publicKey, resolver.resolvePublicKey(keyA).get());
+        assertEquals(1, calls.get());
+        assertEquals(1, resolver.getMissCount());
+        assertEquals(4, resolver.getHitCount());
+    }
+
+    @Test
+    public void reloadsAfterTtlExpires() throws Exception {
+        CachingPublicKeyResolver resolver = CachingPublicKeyResolver.builder()
+                .delegate(countingResolver())
+                .ttl(Duration.ofSeconds(10))
+                .nanoTime(clock::get)
+                .build();
+
+        resolver.resolvePublicKey(keyA).get();
+        clock.addAndGet(Duration.ofSeconds(9).toNanos());
+        resolver.resolvePublicKey(keyA).get();
+        assertEquals(1, calls.get());
+
+        clock.addAndGet(Duration.ofSeconds(2).toNanos());
+        resolver.resolvePublicKey(keyA).get();
+        assertEquals(2, calls.get());
+        assertEquals(1, resolver.getEvictionCount());
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedKey() throws Exception {
+        CachingPublicKeyResolver resolver = CachingPublicKeyResolver.builder()
+                .delegate(countingResolver())
+                .maximumSize(2)
+                .build();
+
+        resolver.resolvePublicKey(keyA).get();
+        resolver.resolvePublicKey(keyB).get();
+        resolver.resolvePublicKey(keyA).get();
+        resolver.resolvePublicKey(keyC).get();
+
+        assertEquals(2, resolver.size());
+        assertEquals(1, resolver.getEvictionCount());
+        resolver.resolvePublicKey(keyA).get();
+        assertEquals(3, calls.get());
+        resolver.resolvePublicKey(keyB).get();
+        assertEquals(4, calls.get());
+    }
+
+    @Test
+    public void cachesFailuresOnlyWhenNegativeTtlIsSet() throws Exception {
+        CachingPublicKeyResolver withoutNegativeCaching = CachingPublicKeyResolver.of(failingResolver());
+        assertFails(withoutNegativeCaching.resolvePublicKey(keyA));
+        assertFails(withoutNegativeCaching.resolvePublicKey(keyA));
+        assertEquals(2, calls.get());
+
+        calls.set(0);
+        CachingPublicKeyResolver withNegativeCaching = CachingPublicKeyResolver.builder()
+                .delegate(failingResolver())
+                .negativeTtl(Duration.ofSeconds(5))
+                .nanoTime(clock::get)
+                .build();
+        assertFails(withNegativeCaching.resolvePublicKey(keyA));
+        assertFails(withNegativeCaching.resolvePublicKey(keyA));
+        assertEquals(1, calls.get());
+
+        clock.addAndGet(Duration.ofSeconds(6).toNanos());
+        assertFails(withNegativeCaching.resolvePublicKey(keyA));
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    public void inFlightLookupsDoNotExpire() throws Exception {
+        clock.set(Long.MAX_VALUE - 5);
+        CompletableFuture<PublicKey> pending = new CompletableFuture<>();
+        CachingPublicKeyResolver resolver = CachingPublicKeyResolver.builder()
+                .delegate(ref -> {
+                    calls.incrementAndGet();
+                    return pending;
+                })
+                .ttl(Duration.ofSeconds(10))
+                .nanoTime(clock::get)
+                .build();
+
+        CompletableFuture<PublicKey> first = resolver.resolvePublicKey(keyA);
+        clock.addAndGet(Duration.ofHours(1).toNanos());
+        CompletableFuture<PublicKey> second = resolver.resolvePublicKey(keyA);
+        pending.complete(null);
+
+        first.get();
+        second.get();
+        assertEquals(1, calls.get());
+        clock.addAndGet(Duration.ofSeconds(11).toNanos());
+        resolver.resolvePublicKey(keyA).get();
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    public void notifiesRemovalListenersAfterUnlocking() throws Exception {
+        CachingPublicKeyResolver resolver = CachingPublicKeyResolver.builder()
+                .delegate(countingResolver())
+                .maximumSize(1)
+                .build();
+        List<String> removed = new ArrayList<>();
+        resolver.addRemovalListener(key -> {
+            try {
+                int size = CompletableFuture.supplyAsync(resolver::size).get(5, TimeUnit.SECONDS);
+                removed.add(key + " " + size);
+            } catch (Exception e) {
+                throw new AssertionError("Another thread could not use the resolver while the listener ran.", e);
+            }
+        });
+
+        resolver.resolvePublicKey(keyA).get();
+        resolver.resolvePublicKey(keyB).get();
+        resolver.invalidate(keyB);
+
+        assertEquals(asList(keyA + " 1", keyB + " 0"), removed);
+    }
+
+    private PublicKeyResolver countingResolver() {
+        return ref -> {
+            calls.incrementAndGet();
+            return CompletableFuture.completedFuture(null);
+        };
+    }
+
+    private PublicKeyResolver failingResolver() {
+        return ref -> {
+            calls.incrementAndGet();
+            CompletableFuture<PublicKey> failed = new CompletableFuture<>();
+            failed.completeExceptionally(new IllegalStateException("no such key"));
+            return failed;
+        };
+    }
+
+    private static void assertFails(CompletableFuture<PublicKey> f) throws InterruptedException {
+        try {
+            f.get();
+            fail("Expected resolution to fail");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+    }
+}
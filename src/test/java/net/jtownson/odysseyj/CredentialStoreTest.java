@@ -0,0 +1,89 @@
+package net.jtownson.odysseyj;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+import static net.jtownson.odysseyj.URICreator.uri;
+import static org.junit.Assert.*;
+
+public class CredentialStoreTest {
+
+    @Test
+    public void findsCredentialsByIdIssuerAndSubject() {
+        CredentialStore store = CredentialStore.builder().arenaSize(1024).offHeap(true).build();
+        for (int i = 0; i < 100; i++) {
+            store.put(vc(i, "https://issuer.example/" + (i % 3), LocalDate.of(2021, 1, 1).atStartOfDay()));
+        }
+
+        assertEquals(100, store.size());
+        assertEquals(vc(42, "https://issuer.example/0", LocalDate.of(2021, 1, 1).atStartOfDay()),
+                store.get("https://example.com/42").get());
+        assertFalse(store.get("https://example.com/100").isPresent());
+        assertEquals(34, store.findByIssuer(uri("https://issuer.example/0")).size());
+        assertEquals(1, store.findBySubject("did:example:7").size());
+        assertTrue(store.getArenaBytes() > 1024);
+
+        VC replacement = vc(7, "https://issuer.example/other", null);
+        store.put(replacement);
+        assertEquals(100, store.size());
+        assertEquals(replacement, store.get("https://example.com/7").get());
+        assertEquals(32, store.findByIssuer(uri("https://issuer.example/1")).size());
+
+        ObjectNode repeated = new ObjectMapper().createObjectNode().put("id", "did:example:shared");
+        store.put(VC.builder()
+                .context(Interner.V1)
+                .type("VerifiableCredential")
+                .id("https://example.com/shared")
+                .issuer(uri("https://issuer.example/0"))
+                .issuanceDate(LocalDate.of(2020, 1, 1).atStartOfDay())
+                .credentialSubject(repeated)
+                .credentialSubject(repeated.deepCopy().put("role", "second"))
+                .build());
+        assertEquals(1, store.findBySubject("did:example:shared").size());
+
+        assertTrue(store.remove("https://example.com/7"));
+        assertFalse(store.remove("https://example.com/7"));
+        assertTrue(store.findBySubject("did:example:7").isEmpty());
+    }
+
+    @Test
+    public void sweepsExpiredCredentialsAndReclaimsTheirSpace() {
+        CredentialStore store = CredentialStore.builder().arenaSize(4096).build();
+        LocalDateTime start = LocalDate.of(2021, 1, 1).atStartOfDay();
+        for (int i = 0; i < 200; i++) {
+            store.put(vc(i, "https://issuer.example/", i % 4 == 0 ? null : start.plusMinutes(i)));
+        }
+        long arenaBytes = store.getArenaBytes();
+
+        assertEquals(0, store.removeExpired(start.toInstant(ZoneOffset.UTC)));
+        assertEquals(100, store.removeExpired(start.plusMinutes(133).toInstant(ZoneOffset.UTC)));
+        assertEquals(100, store.size());
+        assertFalse(store.get("https://example.com/1").isPresent());
+        assertTrue(store.get("https://example.com/134").isPresent());
+        assertTrue(store.get("https://example.com/4").isPresent());
+
+        assertEquals(50, store.removeExpired(start.plusYears(1).toInstant(ZoneOffset.UTC)));
+        assertEquals(50, store.size());
+        assertTrue(store.getArenaBytes() < arenaBytes);
+        assertEquals(50, store.findByIssuer(uri("https://issuer.example/")).size());
+    }
+
+    private static VC vc(int i, String issuer, LocalDateTime expirationDate) {
+        ObjectNode subject = new ObjectMapper().createObjectNode();
+        subject.put("id", "did:example:" + i);
+        return VC.builder()
+                .context(Interner.V1)
+                .type("VerifiableCredential")
+                .id("https://example.com/" + i)
+                .issuer(uri(issuer))
+                .issuanceDate(LocalDate.of(2020, 1, 1).atStartOfDay())
+                .expirationDate(expirationDate)
+                .credentialSubject(subject)
+                .build();
+    }
+}
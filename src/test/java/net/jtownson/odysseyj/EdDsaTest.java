@@ -0,0 +1,80 @@
+package net.jtownson.odysseyj;
+
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PublicKey;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Collections.singletonList;
+import static net.jtownson.odysseyj.URICreator.url;
+import static org.junit.Assert.*;
+
+public class EdDsaTest {
+
+    private static final List<String> EDDSA = singletonList("EdDSA");
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void signsAndVerifiesWithEd25519Keys() throws Exception {
+        KeyPair keyPair = generateKeyPair();
+        URL publicKeyRef = url("https://issuer.example/keys#ed-1");
+        String jws = JwsCodecTest.issue(new SignatureDefinition("EdDSA", publicKeyRef, keyPair.getPrivate()));
+        assertEquals("EdDSA", CompactJws.parse(EDDSA, jws).getAlg());
+
+        String pem = "-----BEGIN PUBLIC KEY-----\n" +
+                Base64.getMimeEncoder().encodeToString(keyPair.getPublic().getEncoded()) +
+                "\n-----END PUBLIC KEY-----\n";
+        PublicKey publicKey = PublicKeys.parse(pem.getBytes(UTF_8));
+        assertArrayEquals(keyPair.getPublic().getEncoded(), publicKey.getEncoded());
+        PublicKeyResolver resolver = ref -> CompletableFuture.completedFuture(publicKey);
+        assertEquals("https://example.com/1", VC.fromJws(EDDSA, resolver, jws).get().getId().get());
+
+        String tampered = jws.substring(0, jws.length() - 4) + (jws.endsWith("AAAA") ? "BBBB" : "AAAA");
+        try {
+            VC.fromJws(EDDSA, resolver, tampered).get();
+            fail("Expected verification to fail");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof InvalidSignature);
+        }
+        try {
+            VC.fromJws(Arrays.asList("EdDSA", "ES256"), resolver, JwsCodecTest.issue("https://example.com/2")).get();
+            fail("Expected an ES256 token to fail against an Ed25519 key");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof InvalidSignature);
+        }
+    }
+
+    @Test
+    public void localResolverLoadsOkpKeysFromAJwks() throws Exception {
+        KeyPair keyPair = generateKeyPair();
+        byte[] spki = keyPair.getPublic().getEncoded();
+        String x = Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOfRange(spki, spki.length - 32, spki.length));
+        Path jwks = folder.getRoot().toPath().resolve("keys.jwks");
+        Files.write(jwks, ("{\"keys\": [{\"kty\": \"OKP\", \"crv\": \"Ed25519\", " +
+                "\"kid\": \"https://issuer.example/keys#ed-1\", \"x\": \"" + x + "\"}]}").getBytes(UTF_8));
+
+        try (LocalPublicKeyResolver resolver = LocalPublicKeyResolver.builder().path(jwks).build()) {
+            String jws = JwsCodecTest.issue(new SignatureDefinition("EdDSA", url("https://issuer.example/keys#ed-1"), keyPair.getPrivate()));
+            assertEquals("https://example.com/1", VC.fromJws(EDDSA, resolver, jws).get().getId().get());
+        }
+    }
+
+    static KeyPair generateKeyPair() throws Exception {
+        return KeyPairGenerator.getInstance("Ed25519", new BouncyCastleProvider()).generateKeyPair();
+    }
+}
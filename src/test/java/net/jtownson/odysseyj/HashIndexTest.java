@@ -0,0 +1,113 @@
+package net.jtownson.odysseyj;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.*;
+
+public class HashIndexTest {
+
+    // A new index has 16 buckets and grows when more than 8 keys are held.
+    private static final int MASK = 15;
+
+    @Test
+    public void findsCollidingKeysAfterRemovingFromTheMiddleOfTheirProbeRun() {
+        List<Long> keys = keysWithHome(3, 5);
+        HashIndex index = new HashIndex();
+        for (int i = 0; i < keys.size(); i++) {
+            index.add(keys.get(i), i);
+        }
+
+        index.removeSlot(2);
+
+        assertSlots(index, keys.get(2));
+        assertSlots(index, keys.get(0), 0);
+        assertSlots(index, keys.get(1), 1);
+        assertSlots(index, keys.get(3), 3);
+        assertSlots(index, keys.get(4), 4);
+    }
+
+    @Test
+    public void shiftsKeysBackAcrossTheEndOfTheTable() {
+        List<Long> wrapping = keysWithHome(MASK, 3);
+        long atZero = keysWithHome(0, 1).get(0);
+        HashIndex index = new HashIndex();
+        index.add(wrapping.get(0), 0);
+        index.add(wrapping.get(1), 1);
+        index.add(atZero, 2);
+        index.add(wrapping.get(2), 3);
+
+        index.removeSlot(0);
+        assertSlots(index, wrapping.get(1), 1);
+        assertSlots(index, atZero, 2);
+        assertSlots(index, wrapping.get(2), 3);
+
+        index.removeSlot(2);
+        assertSlots(index, atZero);
+        assertSlots(index, wrapping.get(1), 1);
+        assertSlots(index, wrapping.get(2), 3);
+    }
+
+    @Test
+    public void matchesAMapThroughResizesAndRemovals() {
+        Random random = new Random(42);
+        HashIndex index = new HashIndex();
+        Map<Long, Set<Integer>> expected = new HashMap<>();
+        Map<Integer, Set<Long>> keysOfSlot = new HashMap<>();
+        for (int slot = 0; slot < 2000; slot++) {
+            for (int k = 0; k < 1 + random.nextInt(3); k++) {
+                long key = random.nextInt(500);
+                if (keysOfSlot.computeIfAbsent(slot, s -> new HashSet<>()).add(key)) {
+                    index.add(key, slot);
+                    expected.computeIfAbsent(key, x -> new HashSet<>()).add(slot);
+                }
+            }
+            if (random.nextInt(3) == 0) {
+                int removed = random.nextInt(slot + 1);
+                index.removeSlot(removed);
+                for (long key : keysOfSlot.getOrDefault(removed, new HashSet<>())) {
+                    expected.get(key).remove(removed);
+                }
+                keysOfSlot.remove(removed);
+            }
+        }
+
+        for (long key = 0; key < 500; key++) {
+            assertEquals("key " + key, expected.getOrDefault(key, new HashSet<>()), slots(index, key));
+        }
+        Set<Long> distinct = new HashSet<>();
+        for (long key : index.keys()) {
+            distinct.add(key);
+        }
+        expected.values().removeIf(Set::isEmpty);
+        assertEquals(expected.keySet(), distinct);
+    }
+
+    private static List<Long> keysWithHome(int home, int count) {
+        List<Long> keys = new ArrayList<>();
+        for (long key = 1000; keys.size() < count; key++) {
+            if ((HashIndex.hash(key) & MASK) == home) {
+                keys.add(key);
+            }
+        }
+        return keys;
+    }
+
+    private static void assertSlots(HashIndex index, long key, Integer... slots) {
+        assertEquals(new HashSet<>(asList(slots)), slots(index, key));
+    }
+
+    private static Set<Integer> slots(HashIndex index, long key) {
+        Set<Integer> slots = new HashSet<>();
+        index.forEach(key, slots::add);
+        return slots;
+    }
+}
@@ -0,0 +1,232 @@
+package net.jtownson.odysseyj;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.*;
+
+public class JsonStreamDecoderTest {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    static final String vcJson = "{" +
+            "\"@context\": [\"https://www.w3.org/2018/credentials/v1\", \"https://www.w3.org/2018/credentials/examples/v1\"]," +
+            "\"id\": \"http://example.edu/credentials/1872\"," +
+            "\"type\": [\"VerifiableCredential\", \"AlumniCredential\"]," +
+            "\"issuer\": \"https://example.edu/issuers/565049\"," +
+            "\"issuanceDate\": \"2010-01-01T19:23:24Z\"," +
+            "\"expirationDate\": \"2020-01-01T19:23:24Z\"," +
+            "\"credentialSubject\": [{\"id\": \"did:example:1\", \"alumniOf\": {\"name\": \"Example University\"}}, {\"id\": \"did:example:2\"}]," +
+            "\"proof\": {\"type\": \"RsaSignature2018\"}" +
+            "}";
+
+    @Test
+    public void decodesTheSameCredentialAsTheTreeDecoder() throws Exception {
+        VC fromTree = VCJsonCodec.decode(objectMapper.readTree(vcJson));
+        VC fromStream = JsonStreamDecoder.decodeVc(parser(vcJson));
+
+        assertEquals(fromTree, fromStream);
+        assertEquals(2, fromStream.getCredentialSubjects().size());
+    }
+
+    @Test
+    public void decodedCredentialsShareRepeatedValues() throws Exception {
+        VC fromTree = VCJsonCodec.decode(objectMapper.readTree(vcJson));
+        VC fromStream = JsonStreamDecoder.decodeVc(parser(vcJson));
+
+        assertSame(fromTree.getIssuer(), fromStream.getIssuer());
+        assertSame(fromTree.getContexts().get(1), fromStream.getContexts().get(1));
+        assertSame(Interner.V1, fromStream.getContexts().get(0));
+        assertSame(fromTree.getTypes().get(1), fromStream.getTypes().get(1));
+
+        Interner interner = new Interner(2);
+        interner.string("a");
+        interner.string("b");
+        assertSame(interner.string("c"), interner.string(new String("c")));
+        assertEquals(1, interner.size());
+        assertNull(interner.absoluteUri("not/absolute"));
+    }
+
+    @Test
+    public void decodesTheSamePresentationAsTheTreeDecoder() throws Exception {
+        String vpJson = "{" +
+                "\"@context\": [\"https://www.w3.org/2018/credentials/v1\", \"https://www.w3.org/2018/credentials/examples/v1\"]," +
+                "\"type\": [\"VerifiablePresentation\"]," +
+                "\"holder\": \"did:example:ebfeb1f712ebc6f1c276e12ec21\"," +
+                "\"verifiableCredential\": [" + vcJson + "," + vcJson + "]," +
+                "\"proof\": {}" +
+                "}";
+
+        VP fromTree = VPJsonCodec.decode(objectMapper.readTree(vpJson));
+        VP fromStream = JsonStreamDecoder.decodeVp(parser(vpJson));
+
+        assertEquals(fromTree, fromStream);
+    }
+
+    @Test
+    public void roundTripsThroughTheStreamingEncoder() throws Exception {
+        VC vc = JsonStreamDecoder.decodeVc(parser(vcJson));
+        VP vp = VP.builder()
+                .context(URICreator.uri(VCJsonCodec.v1))
+                .type("VerifiablePresentation")
+                .verifiableCredential(vc)
+                .build();
+
+        byte[] vcBytes = CodecContext.DEFAULT.encode(vc);
+        byte[] vpBytes = CodecContext.DEFAULT.encode(vp);
+
+        assertEquals(VCJsonCodec.encode(vc).toString(), new String(vcBytes, "UTF-8"));
+        assertEquals(VPJsonCodec.encode(vp).toString(), new String(vpBytes, "UTF-8"));
+        assertEquals(vc, CodecContext.DEFAULT.decodeVc(vcBytes));
+        assertEquals(vp, CodecContext.DEFAULT.decodeVp(vpBytes));
+
+        ByteBuffer buffer = ByteBuffer.allocate(vcBytes.length);
+        CodecContext.DEFAULT.encode(vc, buffer);
+        assertArrayEquals(vcBytes, buffer.array());
+    }
+
+    @Test
+    public void leavesCallerStreamsOpen() throws Exception {
+        VC vc = JsonStreamDecoder.decodeVc(parser(vcJson));
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        CloseTrackingOutputStream out = new CloseTrackingOutputStream(bytes);
+        CodecContext.DEFAULT.encode(vc, out);
+        out.write('\n');
+        CodecContext.DEFAULT.encode(vc, out);
+        assertFalse(out.closed);
+
+        byte[] single = CodecContext.DEFAULT.encode(vc);
+        assertEquals(2 * single.length + 1, bytes.size());
+
+        AtomicBoolean inputClosed = new AtomicBoolean();
+        InputStream in = new FilterInputStream(new ByteArrayInputStream(single)) {
+            @Override
+            public void close() {
+                inputClosed.set(true);
+            }
+        };
+        assertEquals(vc, CodecContext.DEFAULT.decodeVc(in));
+        assertFalse(inputClosed.get());
+    }
+
+    @Test
+    public void roundTripsThroughCbor() throws Exception {
+        VC vc = JsonStreamDecoder.decodeVc(parser(vcJson));
+        VP vp = VP.builder()
+                .context(URICreator.uri(VCJsonCodec.v1))
+                .type("VerifiablePresentation")
+                .verifiableCredential(vc)
+                .verifiableCredential(vc)
+                .build();
+
+        byte[] vcBytes = CodecContext.CBOR.encode(vc);
+        byte[] vpBytes = CodecContext.CBOR.encode(vp);
+
+        assertTrue(vcBytes.length < CodecContext.DEFAULT.encode(vc).length);
+        assertEquals(vc, CodecContext.CBOR.decodeVc(vcBytes));
+        assertEquals(vp, CodecContext.CBOR.decodeVp(vpBytes));
+    }
+
+    @Test
+    public void cborDecoderAppliesTheJsonValidation() throws Exception {
+        String noIssuer = vcJson.replace("\"issuer\": \"https://example.edu/issuers/565049\",", "");
+        byte[] cbor = CodecContext.CBOR.getObjectMapper().writeValueAsBytes(objectMapper.readTree(noIssuer));
+        try {
+            CodecContext.CBOR.decodeVc(cbor);
+            fail("Expected a ParseError");
+        } catch (ParseError e) {
+            assertEquals(expectedError(noIssuer), e.getMessage());
+        }
+    }
+
+    @Test
+    public void lazyCredentialDecodesSubjectsOnFirstAccess() throws Exception {
+        LazyVC lazy = LazyVC.decode(vcJson.getBytes("UTF-8"));
+
+        assertFalse(lazy.isCredentialSubjectDecoded());
+        assertEquals("https://example.edu/issuers/565049", lazy.getIssuer().toString());
+        assertFalse(lazy.isCredentialSubjectDecoded());
+
+        assertEquals(JsonStreamDecoder.decodeVc(parser(vcJson)), lazy);
+        assertTrue(lazy.isCredentialSubjectDecoded());
+    }
+
+    @Test
+    public void lazyCredentialValidatesSubjectsWhenAccessed() throws Exception {
+        String invalidSubject = vcJson.replace("{\"id\": \"did:example:2\"}", "\"did:example:2\"");
+        LazyVC lazy = LazyVC.decode(invalidSubject.getBytes("UTF-8"));
+        try {
+            lazy.decodeCredentialSubjects();
+            fail("Expected a ParseError");
+        } catch (ParseError e) {
+            assertFalse(lazy.isCredentialSubjectDecoded());
+        }
+        try {
+            lazy.hashCode();
+            fail("Expected an IllegalStateException");
+        } catch (IllegalStateException e) {
+            assertTrue(e.getCause() instanceof ParseError);
+        }
+    }
+
+    @Test
+    public void failsOnTheFirstStructuralError() throws Exception {
+        String invalid = "{\"type\": [\"AlumniCredential\"], \"credentialSubject\": {" + unterminated();
+        try {
+            JsonStreamDecoder.decodeVc(parser(invalid));
+            fail("Expected a ParseError");
+        } catch (ParseError e) {
+            assertEquals(VCJsonCodec.typeError("VerifiableCredential"), e.getMessage());
+        }
+    }
+
+    private static String expectedError(String json) {
+        try {
+            CodecContext.DEFAULT.decodeVc(json.getBytes());
+            return null;
+        } catch (ParseError e) {
+            return e.getMessage();
+        }
+    }
+
+    private static String unterminated() {
+        return "\"name\": \"...";
+    }
+
+    private static class CloseTrackingOutputStream extends FilterOutputStream {
+        private boolean closed;
+
+        CloseTrackingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (closed) {
+                throw new IOException("Stream closed");
+            }
+            super.write(b);
+        }
+
+        @Override
+        public void close() throws IOException {
+            closed = true;
+            super.close();
+        }
+    }
+
+    private static JsonParser parser(String json) throws Exception {
+        return objectMapper.getFactory().createParser(json);
+    }
+}
@@ -0,0 +1,305 @@
+package net.jtownson.odysseyj;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static java.util.Collections.singletonList;
+import static net.jtownson.odysseyj.URICreator.uri;
+import static org.jose4j.jws.AlgorithmIdentifiers.ECDSA_USING_P256_CURVE_AND_SHA256;
+import static org.junit.Assert.*;
+
+public class JwsCodecTest {
+
+    private static final List<String> ES256 = singletonList(ECDSA_USING_P256_CURVE_AND_SHA256);
+
+    @Test
+    public void batchResolvesEachKeyOnceAndSeparatesFailures() throws Exception {
+        AtomicInteger resolutions = new AtomicInteger();
+        PublicKeyResolver resolver = publicKeyRef -> {
+            resolutions.incrementAndGet();
+            return CompletableFuture.completedFuture(KeyFoo.getPublicKeyFromRef(publicKeyRef));
+        };
+        String jws1 = issue("https://example.com/1");
+        String jws2 = issue("https://example.com/2");
+        String tampered = jws2.substring(0, jws2.length() - 4) + "AAAA";
+
+        JwsBatchResult result = VC.fromJwsBatch(ES256, resolver, Arrays.asList(jws1, "not a jws", jws2, tampered)).get();
+
+        assertEquals(1, resolutions.get());
+        assertEquals(4, result.size());
+        assertEquals("https://example.com/1", result.getCredentials().get(0).getId().get());
+        assertEquals("https://example.com/2", result.getCredentials().get(2).getId().get());
+        assertTrue(result.getFailures().get(1) instanceof ParseError);
+        assertTrue(result.getFailures().get(3) instanceof InvalidSignature);
+    }
+
+    @Test
+    public void asyncVerificationDeliversFailuresInsideTheFuture() throws Exception {
+        JwsVerifier verifier = JwsVerifier.builder()
+                .alg(ECDSA_USING_P256_CURVE_AND_SHA256)
+                .publicKeyResolver(resolver())
+                .executor(Runnable::run)
+                .build();
+
+        VC vc = verifier.verify(issue("https://example.com/1")).toCompletableFuture().get();
+        assertEquals("https://example.com/1", vc.getId().get());
+
+        CompletableFuture<VC> invalid = verifier.verify("not a jws").toCompletableFuture();
+        try {
+            invalid.get();
+            fail("Expected verification to fail");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof ParseError);
+        }
+    }
+
+    @Test
+    public void bulkIssuerEmitsCredentialsInInputOrder() throws Exception {
+        List<VC> credentials = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            credentials.add(VC.builder()
+                    .context(uri(VCJsonCodec.v1))
+                    .type("VerifiableCredential")
+                    .id("https://example.com/" + i)
+                    .issuer(uri("https://www.postoffice.co.uk"))
+                    .issuanceDate(LocalDate.of(2020, 1, 1).atStartOfDay())
+                    .credentialSubject(subject())
+                    .build());
+        }
+        List<String> issued = new ArrayList<>();
+        try (BulkIssuer issuer = BulkIssuer.builder().signatureDefinition(KeyFoo.getKeyPair()).parallelism(4).build()) {
+            issuer.issue(credentials.stream(), issued::add);
+        }
+
+        JwsBatchResult result = VC.fromJwsBatch(ES256, resolver(), issued).get();
+        assertTrue(result.isAllValid());
+        for (int i = 0; i < credentials.size(); i++) {
+            assertEquals(credentials.get(i), result.getCredentials().get(i));
+        }
+    }
+
+    @Test
+    public void bulkIssuerAddsTheJwsBuilderDefaultsWhenIssuingUnordered() throws Exception {
+        Set<String> ids = new HashSet<>();
+        List<VC> credentials = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            ids.add("https://example.com/" + i);
+            credentials.add(VC.builder()
+                    .id("https://example.com/" + i)
+                    .issuer(uri("https://www.postoffice.co.uk"))
+                    .issuanceDate(LocalDate.of(2020, 1, 1).atStartOfDay())
+                    .credentialSubject(subject())
+                    .build());
+        }
+        List<String> issued = new ArrayList<>();
+        try (BulkIssuer issuer = BulkIssuer.builder().signatureDefinition(KeyFoo.getKeyPair()).parallelism(4).build()) {
+            issuer.issueUnordered(credentials.stream(), issued::add);
+        }
+
+        JwsBatchResult result = VC.fromJwsBatch(ES256, resolver(), issued).get();
+        assertTrue(result.isAllValid());
+        Set<String> verified = new HashSet<>();
+        for (VC vc : result.getCredentials().values()) {
+            assertEquals(singletonList("VerifiableCredential"), vc.getTypes());
+            assertEquals(singletonList(Interner.V1), vc.getContexts());
+            verified.add(vc.getId().get());
+        }
+        assertEquals(ids, verified);
+    }
+
+    @Test
+    public void bulkIssuerEndsTheIssueCallOnASigningFailure() throws Exception {
+        SignatureDefinition key = KeyFoo.getKeyPair();
+        SignatureDefinition wrongAlg = new SignatureDefinition("EdDSA", key.getPublicKeyRef(), key.getPrivateKey());
+        List<String> issued = new ArrayList<>();
+        try (BulkIssuer issuer = BulkIssuer.builder().signatureDefinition(wrongAlg).parallelism(2).build()) {
+            issuer.issue(Stream.of(VC.builder().issuer(uri("https://www.postoffice.co.uk")).build()), issued::add);
+            fail("Expected signing to fail");
+        } catch (IllegalStateException e) {
+            assertNotNull(e.getCause());
+            assertTrue(e.getMessage(), e.getMessage().startsWith("Unable to sign credential"));
+        }
+        assertTrue(issued.isEmpty());
+    }
+
+    @Test
+    public void presentationJwsVerifiesEmbeddedCredentialsWithSharedKeyResolution() throws Exception {
+        AtomicInteger resolutions = new AtomicInteger();
+        PublicKeyResolver resolver = publicKeyRef -> {
+            resolutions.incrementAndGet();
+            return CompletableFuture.completedFuture(KeyFoo.getPublicKeyFromRef(publicKeyRef));
+        };
+        List<String> credentials = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            credentials.add(issue("https://example.com/" + i));
+        }
+
+        String vpJws = VP.jwsBuilder()
+                .holder(uri("did:example:holder"))
+                .verifiableCredentials(credentials)
+                .signatureDefinition(KeyFoo.getKeyPair())
+                .build();
+        VP vp = VP.fromJws(ES256, resolver, vpJws).get();
+
+        assertEquals(1, resolutions.get());
+        assertEquals("did:example:holder", vp.getHolder().get().toString());
+        assertEquals(20, vp.getVerifiableCredentials().size());
+        assertEquals("https://example.com/19", vp.getVerifiableCredentials().get(19).getId().get());
+
+        String tampered = credentials.get(7).substring(0, credentials.get(7).length() - 4) + "AAAA";
+        credentials.set(7, tampered);
+        String invalidVpJws = VP.jwsBuilder()
+                .verifiableCredentials(credentials)
+                .signatureDefinition(KeyFoo.getKeyPair())
+                .build();
+        try {
+            VP.fromJws(ES256, resolver, invalidVpJws).get();
+            fail("Expected verification to fail");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof InvalidSignature);
+        }
+    }
+
+    @Test
+    public void presentationVerifierAppliesCredentialChecksToEachEmbeddedCredential() throws Exception {
+        List<String> credentials = Arrays.asList(issue("https://example.com/1"), issue("https://example.com/2"));
+        String vpJws = VP.jwsBuilder().verifiableCredentials(credentials).signatureDefinition(KeyFoo.getKeyPair()).build();
+
+        try {
+            VP.fromJws(vpJws, verifierAt(LocalDate.of(2021, 6, 1).atStartOfDay())).get();
+            fail("Expected the expired credentials to be rejected");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof OutsideValidityPeriod);
+        }
+
+        VerifiedJwsCache cache = VerifiedJwsCache.builder()
+                .clock(Clock.fixed(LocalDate.of(2020, 6, 1).atStartOfDay().toInstant(ZoneOffset.UTC), ZoneOffset.UTC))
+                .build();
+        JwsVerifier verifier = JwsVerifier.builder()
+                .algWhitelist(ES256)
+                .publicKeyResolver(resolver())
+                .verifiedJwsCache(cache)
+                .build();
+        VP first = VP.fromJws(vpJws, verifier).get();
+        VP second = VP.fromJws(vpJws, verifier).get();
+        assertEquals(first, second);
+        assertEquals(2, cache.getHitCount());
+    }
+
+    @Test
+    public void temporalValidatorChecksTheClaimsAndDatesAgainstItsClock() throws Exception {
+        String jws = issue("https://example.com/1");
+        assertEquals(1609459200L, CompactJws.parse(ES256, jws).getHeader().get("exp").asLong());
+
+        VC.fromJws(jws, verifierAt(LocalDate.of(2020, 6, 1).atStartOfDay())).get();
+        VC.fromJws(jws, verifierAt(LocalDate.of(2020, 12, 31).atTime(23, 59, 30))).get();
+        for (LocalDateTime outside : Arrays.asList(
+                LocalDate.of(2019, 12, 31).atTime(23, 58), LocalDate.of(2021, 1, 1).atTime(0, 1))) {
+            try {
+                VC.fromJws(jws, verifierAt(outside)).get();
+                fail("Expected " + outside + " to be outside the validity period");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof OutsideValidityPeriod);
+            }
+        }
+    }
+
+    @Test
+    public void decodesThePayloadAndDetachedLayouts() throws Exception {
+        VC vc = VC.fromJws(ES256, resolver(), issue("https://example.com/1")).get();
+        SignatureDefinition key = KeyFoo.getKeyPair();
+
+        String jwt = JwsCodec.encodeJws(key.getPrivateKey(), key.getPublicKeyRef(), key.getAlg(), vc, JwsLayout.PAYLOAD);
+        CompactJws parsed = CompactJws.parse(ES256, jwt);
+        assertFalse(parsed.getHeader().has("vc"));
+        assertEquals("https://example.com/1", parsed.getClaims().get("jti").asText());
+        assertEquals(vc, VC.fromJws(jwt, verifierAt(LocalDate.of(2020, 6, 1).atStartOfDay())).get());
+
+        DetachedJws detached = JwsCodec.encodeDetachedJws(key.getPrivateKey(), key.getPublicKeyRef(), key.getAlg(), vc);
+        assertTrue(detached.getJws().contains(".."));
+        assertEquals(vc, VC.fromDetachedJws(ES256, resolver(), detached.getJws(), detached.getPayload()).get());
+
+        byte[] tampered = new String(detached.getPayload(), "UTF-8").replace("Queen", "Quean").getBytes("UTF-8");
+        try {
+            VC.fromDetachedJws(ES256, resolver(), detached.getJws(), tampered).get();
+            fail("Expected verification to fail");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof InvalidSignature);
+        }
+        try {
+            CompactJws.parse(ES256, detached.getJws());
+            fail("Expected a detached JWS without its payload to be rejected");
+        } catch (ParseError e) {
+            assertTrue(e.getMessage().contains("b64=false"));
+        }
+    }
+
+    private static JwsVerifier verifierAt(LocalDateTime now) {
+        return JwsVerifier.builder()
+                .algWhitelist(ES256)
+                .publicKeyResolver(resolver())
+                .temporalValidator(TemporalValidator.builder()
+                        .clock(Clock.fixed(now.toInstant(ZoneOffset.UTC), ZoneOffset.UTC))
+                        .skew(Duration.ofSeconds(30))
+                        .build())
+                .build();
+    }
+
+    static PublicKeyResolver resolver() {
+        return publicKeyRef -> CompletableFuture.completedFuture(KeyFoo.getPublicKeyFromRef(publicKeyRef));
+    }
+
+    static String issue(String id) throws Exception {
+        return VC.jwsBuilder()
+                .additionalType("AddressCredential")
+                .additionalContext(uri("https://www.w3.org/2018/credentials/examples/v1"))
+                .id(id)
+                .issuer(uri("https://www.postoffice.co.uk"))
+                .issuanceDate(LocalDate.of(2020, 1, 1).atStartOfDay())
+                .expirationDate(LocalDate.of(2021, 1, 1).atStartOfDay())
+                .credentialSubject(subject())
+                .signatureDefinition(KeyFoo.getKeyPair())
+                .build();
+    }
+
+    static String issue(SignatureDefinition signatureDefinition) {
+        return issue("https://example.com/1", subject(), null, null, signatureDefinition);
+    }
+
+    static String issue(String id, ObjectNode subject, CredentialStatus credentialStatus, JwsLayout layout,
+                        SignatureDefinition signatureDefinition) {
+        return VC.jwsBuilder()
+                .id(id)
+                .issuer(uri("https://www.postoffice.co.uk"))
+                .issuanceDate(LocalDate.of(2020, 1, 1).atStartOfDay())
+                .credentialSubject(subject)
+                .credentialStatus(credentialStatus)
+                .signatureDefinition(signatureDefinition)
+                .layout(layout)
+                .build();
+    }
+
+    static ObjectNode subject() {
+        ObjectNode subject = new ObjectMapper().createObjectNode();
+        subject.put("id", "did:ata:abc123");
+        subject.put("name", "Her Majesty The Queen");
+        subject.put("address", "Buckingham Palace, SW1A 1AA");
+        return subject;
+    }
+}
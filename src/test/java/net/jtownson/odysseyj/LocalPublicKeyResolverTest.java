@@ -0,0 +1,108 @@
+package net.jtownson.odysseyj;
+
+import org.jose4j.jwk.JsonWebKey;
+import org.jose4j.jwk.PublicJsonWebKey;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.PublicKey;
+import java.security.spec.InvalidKeySpecException;
+import java.util.concurrent.ExecutionException;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static net.jtownson.odysseyj.URICreator.url;
+import static org.junit.Assert.*;
+
+public class LocalPublicKeyResolverTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final PublicKey publicKey = KeyFoo.getPublicKeyFromRef(url(Paths.get("id_ecdsa.pem").toUri().toString()));
+
+    @Test
+    public void indexesJwksKeysByTheirFullKeyReference() throws Exception {
+        Path directory = folder.getRoot().toPath();
+        Path pem = Files.copy(Paths.get("id_ecdsa.pub"), directory.resolve("issuer-1.pub"));
+        Files.write(directory.resolve("issuer-2.jwks"), jwks("https://issuer-2.example/jwks#key-1").getBytes(UTF_8));
+        Files.write(directory.resolve("issuer-3.jwks"), jwks("https://issuer-3.example/jwks#key-1").getBytes(UTF_8));
+        Files.write(directory.resolve("notes.txt"), "ignored".getBytes(UTF_8));
+
+        try (LocalPublicKeyResolver resolver = LocalPublicKeyResolver.builder().path(directory).build()) {
+            assertEquals(publicKey, resolve(resolver, url("https://issuer-2.example/jwks#key-1")));
+            assertEquals(publicKey, resolve(resolver, url("https://issuer-3.example/jwks#key-1")));
+            assertEquals(publicKey, resolve(resolver, pem.toUri().toURL()));
+            assertUnresolved(resolver, url("https://attacker.example/jwks#key-1"));
+            assertUnresolved(resolver, url("https://issuer-2.example/key-1"));
+            assertUnresolved(resolver, url("https://issuer.example/keys/issuer-1"));
+        }
+
+        try (LocalPublicKeyResolver resolver =
+                     LocalPublicKeyResolver.builder().path(directory).matchFileNames(true).build()) {
+            assertEquals(publicKey, resolve(resolver, url("https://issuer.example/keys/issuer-1")));
+            assertEquals(publicKey, resolve(resolver, url("https://issuer.example/keys/issuer-1.pub")));
+            assertUnresolved(resolver, url("https://attacker.example/jwks#key-1"));
+        }
+
+        Files.write(directory.resolve("bare.jwks"), jwks("key-1").getBytes(UTF_8));
+        try {
+            LocalPublicKeyResolver.builder().path(directory).build();
+            fail("Expected a kid that is not a key reference URL to be rejected");
+        } catch (InvalidKeySpecException e) {
+            assertTrue(e.getMessage().contains("full key reference URL"));
+        }
+    }
+
+    @Test
+    public void swapsInTheNewIndexWhenTheJwksChanges() throws Exception {
+        Path jwks = folder.getRoot().toPath().resolve("keys.json");
+        Files.write(jwks, jwks("https://issuer.example/keys#key-1").getBytes(UTF_8));
+
+        try (LocalPublicKeyResolver resolver = LocalPublicKeyResolver.of(jwks)) {
+            Path next = folder.newFile("keys.json.tmp").toPath();
+            Files.write(next, jwks("https://issuer.example/keys#key-2").getBytes(UTF_8));
+            Files.move(next, jwks, ATOMIC_MOVE);
+
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (resolver.getReloadCount() == 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+            assertEquals(1, resolver.getReloadCount());
+            assertEquals(publicKey, resolve(resolver, url("https://issuer.example/keys#key-2")));
+            assertFalse(resolver.getKids().contains("https://issuer.example/keys#key-1"));
+
+            Files.write(jwks, "{\"keys\": [".getBytes(UTF_8));
+            try {
+                resolver.reload();
+                fail();
+            } catch (Exception e) {
+                assertEquals(publicKey, resolve(resolver, url("https://issuer.example/keys#key-2")));
+            }
+        }
+    }
+
+    private void assertUnresolved(LocalPublicKeyResolver resolver, URL ref) throws Exception {
+        try {
+            resolve(resolver, ref);
+            fail("Expected no key for " + ref);
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof KeyResolutionError);
+        }
+    }
+
+    private PublicKey resolve(LocalPublicKeyResolver resolver, URL ref) throws Exception {
+        return resolver.resolvePublicKey(ref).get();
+    }
+
+    private String jwks(String kid) throws Exception {
+        PublicJsonWebKey jwk = PublicJsonWebKey.Factory.newPublicJwk(publicKey);
+        jwk.setKeyId(kid);
+        return "{\"keys\": [" + jwk.toJson(JsonWebKey.OutputControlLevel.PUBLIC_ONLY) + "]}";
+    }
+}
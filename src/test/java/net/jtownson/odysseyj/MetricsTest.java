@@ -0,0 +1,85 @@
+package net.jtownson.odysseyj;
+
+import net.jtownson.odysseyj.MetricsListener.Outcome;
+import net.jtownson.odysseyj.MetricsListener.Stage;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.security.PublicKey;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.Assert.*;
+
+public class MetricsTest {
+
+    @Test
+    public void histogramPercentilesAreWithinBucketResolution() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long i = 1; i <= 10000; i++) {
+            histogram.record(i * 1000);
+        }
+
+        assertEquals(10000, histogram.getCount());
+        assertEquals(10_000_000, histogram.getMax());
+        assertWithin(5_000_000, histogram.getValueAtPercentile(50));
+        assertWithin(9_900_000, histogram.getValueAtPercentile(99));
+    }
+
+    @Test
+    public void listenerRecordsEachVerificationStage() throws Exception {
+        String jws = JwsCodecTest.issue("https://example.com/1");
+        HistogramMetricsListener listener = new HistogramMetricsListener();
+        Metrics.setListener(listener);
+        try {
+            VC.fromJwsBatch(Arrays.asList("ES256"), JwsCodecTest.resolver(), Arrays.asList(jws, "not a jws")).get();
+        } finally {
+            Metrics.setListener(null);
+        }
+
+        assertEquals(1, listener.getCount(Stage.JWS_PARSE, Outcome.SUCCESS));
+        assertEquals(1, listener.getCount(Stage.JWS_PARSE, Outcome.PARSE_ERROR));
+        assertEquals(1, listener.getCount(Stage.KEY_RESOLUTION, Outcome.SUCCESS));
+        assertEquals(1, listener.getCount(Stage.SIGNATURE_VERIFICATION, Outcome.SUCCESS));
+        assertEquals(1, listener.getCount(Stage.VC_DECODE, Outcome.SUCCESS));
+        assertEquals(jws.length() + "not a jws".length(), listener.getBytes(Stage.JWS_PARSE));
+        assertTrue(listener.export().containsKey("signature_verification.p99_us"));
+    }
+
+    @Test
+    public void listenerClassifiesKeyResolutionAndSigningFailures() throws Exception {
+        String jws = JwsCodecTest.issue("https://example.com/1");
+        PublicKeyResolver failing = publicKeyRef -> {
+            CompletableFuture<PublicKey> failed = new CompletableFuture<>();
+            failed.completeExceptionally(new IOException("Connection refused"));
+            return failed;
+        };
+        HistogramMetricsListener listener = new HistogramMetricsListener();
+        Metrics.setListener(listener);
+        try {
+            try {
+                VC.fromJws(Arrays.asList("ES256"), failing, jws).get();
+                fail("Expected key resolution to fail");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof KeyResolutionError);
+            }
+            try {
+                new JwsSigner(KeyFoo.getKeyPair()).sign(VP.builder().build(), null);
+                fail("Expected signing to fail");
+            } catch (NullPointerException e) {
+                // expected
+            }
+        } finally {
+            Metrics.setListener(null);
+        }
+
+        assertEquals(1, listener.getCount(Stage.KEY_RESOLUTION, Outcome.KEY_RESOLUTION_FAILURE));
+        assertEquals(0, listener.getCount(Stage.KEY_RESOLUTION, Outcome.ERROR));
+        assertEquals(1, listener.getCount(Stage.JWS_SIGN, Outcome.ERROR));
+    }
+
+    private static void assertWithin(long expected, long actual) {
+        assertTrue("Expected about " + expected + " but got " + actual, Math.abs(actual - expected) <= expected * 0.04);
+    }
+}
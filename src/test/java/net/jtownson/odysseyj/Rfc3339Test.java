@@ -0,0 +1,53 @@
+package net.jtownson.odysseyj;
+
+import org.junit.Test;
+
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+
+import static org.junit.Assert.*;
+
+public class Rfc3339Test {
+
+    @Test
+    public void parsesFractionsAndOffsetsToUtc() {
+        assertEquals(LocalDateTime.of(2010, 1, 1, 19, 23, 24), Rfc3339.parse("2010-01-01T19:23:24Z"));
+        assertEquals(LocalDateTime.of(2010, 1, 1, 19, 23, 24, 120_000_000), Rfc3339.parse("2010-01-01T19:23:24.12Z"));
+        assertEquals(LocalDateTime.of(2010, 1, 1, 19, 23, 24, 123_456_789),
+                Rfc3339.parse("2010-01-01t19:23:24.1234567891z"));
+        assertEquals(LocalDateTime.of(2009, 12, 31, 23, 53, 24), Rfc3339.parse("2010-01-01T01:23:24+01:30"));
+        assertEquals(LocalDateTime.of(2020, 2, 29, 5, 0), Rfc3339.parse("2020-02-28T23:00:00-06:00"));
+        assertEquals(LocalDateTime.of(2016, 12, 31, 23, 59, 59), Rfc3339.parse("2016-12-31T23:59:60Z"));
+
+        for (String s : new String[] {"2010-01-01T19:23:24+01:30", "1990-12-31T15:59:59.5-08:00"}) {
+            assertEquals(OffsetDateTime.parse(s).withOffsetSameInstant(ZoneOffset.UTC).toLocalDateTime(), Rfc3339.parse(s));
+        }
+    }
+
+    @Test
+    public void rejectsMalformedTimestamps() {
+        String[] invalid = {
+                "2010-01-01", "2010-01-01T19:23:24", "2010-01-01 19:23:24Z", "2010-01-01T19:23:24.Z",
+                "2010-13-01T19:23:24Z", "2019-02-29T19:23:24Z", "2010-01-01T24:00:00Z", "2010-01-01T19:23:24+0100",
+                "2010-01-01T19:23:24+01:00Z", "2010-01-01T19:23:24ZZ", "+2010-01-01T19:23:24Z"};
+        for (String s : invalid) {
+            try {
+                Rfc3339.parse(s);
+                fail("Expected " + s + " to be rejected");
+            } catch (DateTimeException e) {
+                assertTrue(e.getMessage().contains(s));
+            }
+        }
+    }
+
+    @Test
+    public void formatsUtcWithTheShortestWholeFraction() {
+        assertEquals("2010-01-01T19:23:24Z", Rfc3339.format(LocalDateTime.of(2010, 1, 1, 19, 23, 24)));
+        assertEquals("2010-01-01T19:23:24.120Z", Rfc3339.format(LocalDateTime.of(2010, 1, 1, 19, 23, 24, 120_000_000)));
+        assertEquals("0999-01-01T00:00:00.000001Z", Rfc3339.format(LocalDateTime.of(999, 1, 1, 0, 0, 0, 1_000)));
+        LocalDateTime nanos = LocalDateTime.of(2010, 1, 1, 19, 23, 24, 123_456_789);
+        assertEquals(nanos, Rfc3339.parse(Rfc3339.format(nanos)));
+    }
+}
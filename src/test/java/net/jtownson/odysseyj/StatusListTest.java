@@ -0,0 +1,185 @@
+package net.jtownson.odysseyj;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.Test;
+
+import java.net.URI;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.Collections.singleton;
+import static java.util.Collections.singletonList;
+import static net.jtownson.odysseyj.URICreator.uri;
+import static org.jose4j.jws.AlgorithmIdentifiers.ECDSA_USING_P256_CURVE_AND_SHA256;
+import static org.junit.Assert.*;
+
+public class StatusListTest {
+
+    private static final List<String> ES256 = singletonList(ECDSA_USING_P256_CURVE_AND_SHA256);
+    private static final URI listUri = uri("https://example.com/status/1");
+
+    @Test
+    public void roundTripsAnEncodedList() throws Exception {
+        BitSet bits = new BitSet();
+        bits.set(0);
+        bits.set(7);
+        bits.set(64);
+        bits.set(999_999);
+        StatusList list = StatusList.decode(StatusList.of(bits, 1_000_000).encode());
+
+        assertEquals(1_000_000, list.size());
+        for (long i : new long[] {0, 7, 64, 999_999}) {
+            assertTrue(list.isSet(i));
+        }
+        for (long i : new long[] {1, 8, 63, 65, 999_998}) {
+            assertFalse(list.isSet(i));
+        }
+    }
+
+    @Test
+    public void acceptsStatusList2021EncodingWithoutMultibasePrefix() throws Exception {
+        BitSet bits = new BitSet();
+        bits.set(0);
+        bits.set(15);
+        String encoded = StatusList.of(bits, 16).encode();
+        assertTrue(encoded.startsWith("uH4sI"));
+        StatusList decoded = StatusList.decode(encoded.substring(1));
+        assertTrue(decoded.isSet(0));
+        assertTrue(decoded.isSet(15));
+        assertFalse(decoded.isSet(8));
+    }
+
+    @Test
+    public void rejectsRevokedCredentialsDuringVerification() throws Exception {
+        BitSet revoked = new BitSet();
+        revoked.set(42);
+        AtomicInteger loads = new AtomicInteger();
+        StatusListChecker checker = StatusListChecker.of(uri -> {
+            loads.incrementAndGet();
+            return CompletableFuture.completedFuture(StatusList.of(revoked, 131_072));
+        });
+
+        VerifiedJwsCache cache = VerifiedJwsCache.builder().build();
+        JwsVerifier verifier = JwsVerifier.builder()
+                .algWhitelist(ES256)
+                .publicKeyResolver(JwsCodecTest.resolver())
+                .verifiedJwsCache(cache)
+                .statusListChecker(checker)
+                .temporalValidator(TemporalValidator.builder().build())
+                .build();
+
+        VC valid = VC.fromJws(issue(41), verifier).get();
+        assertEquals(41L, (long) valid.getCredentialStatus().get().getStatusListIndex().get());
+        String revokedJws = issue(42);
+        for (int attempt = 0; attempt < 2; attempt++) {
+            try {
+                VC.fromJws(revokedJws, verifier).get();
+                fail("Expected the credential to be revoked");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof RevokedCredential);
+            }
+        }
+        assertEquals(1, cache.getHitCount());
+
+        String vpJws = VP.jwsBuilder()
+                .verifiableCredential(issue(41))
+                .verifiableCredential(revokedJws)
+                .signatureDefinition(KeyFoo.getKeyPair())
+                .build();
+        try {
+            VP.fromJws(vpJws, verifier).get();
+            fail("Expected the presentation to be rejected");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof RevokedCredential);
+        }
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void rejectsEntriesWhosePurposeDiffersFromTheList() throws Exception {
+        BitSet bits = new BitSet();
+        bits.set(7);
+        ObjectNode subject = new ObjectMapper().createObjectNode()
+                .put("type", "BitstringStatusList")
+                .put("statusPurpose", "suspension")
+                .put("encodedList", StatusList.of(bits, 131_072).encode());
+        StatusList suspensions = StatusList.fromCredential(VC.builder().credentialSubject(subject).build());
+        assertEquals(singleton("suspension"), suspensions.getStatusPurposes());
+        StatusListChecker checker = StatusListChecker.of(uri -> CompletableFuture.completedFuture(suspensions));
+
+        try {
+            checker.check(credential(7, "revocation")).get();
+            fail("Expected a revocation entry to be rejected by a suspension list");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof ParseError);
+            assertTrue(e.getCause().getMessage().contains("does not match"));
+        }
+        try {
+            checker.check(credential(7, "suspension")).get();
+            fail("Expected the credential to be suspended");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof RevokedCredential);
+        }
+        assertEquals(8L, (long) checker.check(credential(8, "suspension")).get()
+                .getCredentialStatus().get().getStatusListIndex().get());
+
+        ObjectNode unspecified = subject.deepCopy();
+        unspecified.remove("statusPurpose");
+        try {
+            StatusList.fromCredential(VC.builder().credentialSubject(unspecified).build());
+            fail("Expected a list without a statusPurpose to be rejected");
+        } catch (ParseError e) {
+            assertTrue(e.getMessage().contains("statusPurpose"));
+        }
+    }
+
+    @Test
+    public void credentialStatusRoundTripsThroughBothCodecs() throws Exception {
+        String json = JsonStreamDecoderTest.vcJson.replace("\"proof\"",
+                "\"credentialStatus\": {\"id\": \"https://example.com/status/1#94567\", " +
+                        "\"type\": \"BitstringStatusListEntry\", \"statusPurpose\": \"revocation\", " +
+                        "\"statusListIndex\": \"94567\", \"statusListCredential\": \"https://example.com/status/1\"}, " +
+                        "\"proof\"");
+
+        VC vc = CodecContext.DEFAULT.decodeVc(json.getBytes("UTF-8"));
+        assertEquals(vc, VCJsonCodec.decode(CodecContext.DEFAULT.getObjectMapper().readTree(json)));
+        assertEquals(94567L, (long) vc.getCredentialStatus().get().getStatusListIndex().get());
+        assertEquals(vc, CodecContext.DEFAULT.decodeVc(CodecContext.DEFAULT.encode(vc)));
+        assertEquals(vc, VCJsonCodec.decode(VCJsonCodec.encode(vc)));
+
+        try {
+            CodecContext.DEFAULT.decodeVc(json.replace("\"94567\"", "\"-1\"").getBytes("UTF-8"));
+            fail("Expected a ParseError");
+        } catch (ParseError e) {
+            assertTrue(e.getMessage().contains("statusListIndex"));
+        }
+    }
+
+    private static String issue(long index) throws Exception {
+        return JwsCodecTest.issue("https://example.com/" + index, JwsCodecTest.subject(), CredentialStatus.builder()
+                .id(uri(listUri + "#" + index))
+                .type(CredentialStatus.BITSTRING_STATUS_LIST_ENTRY)
+                .statusPurpose("revocation")
+                .statusListIndex(index)
+                .statusListCredential(listUri)
+                .build(), null, KeyFoo.getKeyPair());
+    }
+
+    private static VC credential(long index, String statusPurpose) {
+        return VC.builder()
+                .id("https://example.com/" + index)
+                .issuer(uri("https://www.postoffice.co.uk"))
+                .credentialStatus(CredentialStatus.builder()
+                        .id(uri(listUri + "#" + index))
+                        .type(CredentialStatus.BITSTRING_STATUS_LIST_ENTRY)
+                        .statusPurpose(statusPurpose)
+                        .statusListIndex(index)
+                        .statusListCredential(listUri)
+                        .build())
+                .build();
+    }
+}
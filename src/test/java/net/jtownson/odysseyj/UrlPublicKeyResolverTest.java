@@ -0,0 +1,90 @@
+package net.jtownson.odysseyj;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.Test;
+
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static net.jtownson.odysseyj.URICreator.url;
+import static org.junit.Assert.*;
+
+public class UrlPublicKeyResolverTest {
+
+    @Test
+    public void trustsOnlyReferencesUnderAPrefix() {
+        UrlPublicKeyResolver resolver = new UrlPublicKeyResolver(Runnable::run, asList(
+                "https://issuer.example", "https://keys.example/issuer/", "https://keys.example:8443/exact.pem"));
+
+        for (String ref : asList(
+                "https://issuer.example.evil.com/key.pem",
+                "https://issuer.example@evil.com/key.pem",
+                "https://user@issuer.example/key.pem",
+                "http://issuer.example/key.pem",
+                "https://issuer.example:8443/key.pem",
+                "https://keys.example/issuer-evil/key.pem",
+                "https://keys.example/issuer/../other/key.pem",
+                "https://keys.example/issuer/%2e%2e/other/key.pem",
+                "https://keys.example:8443/exact.pem.evil",
+                "file:/etc/key.pem")) {
+            assertUntrusted(resolver, ref);
+        }
+        assertTrue(isTrusted(resolver, "https://ISSUER.example:443/keys/key.pem"));
+        assertTrue(isTrusted(resolver, "https://keys.example/issuer/key.pem"));
+        assertTrue(isTrusted(resolver, "https://keys.example:8443/exact.pem"));
+    }
+
+    @Test
+    public void readsOnlyHttpsWithoutPrefixes() {
+        UrlPublicKeyResolver resolver = new UrlPublicKeyResolver(Runnable::run);
+
+        assertUntrusted(resolver, "http://issuer.example/key.pem");
+        assertUntrusted(resolver, Paths.get("id_ecdsa.pub").toUri().toString());
+        assertTrue(isTrusted(resolver, "https://issuer.example/key.pem"));
+    }
+
+    @Test
+    public void refusesRedirectsOutOfATrustedPrefix() throws Exception {
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        byte[] key = Files.readAllBytes(Paths.get("id_ecdsa.pub"));
+        server.createContext("/keys/key.pem", exchange -> {
+            exchange.sendResponseHeaders(200, key.length);
+            exchange.getResponseBody().write(key);
+            exchange.close();
+        });
+        server.createContext("/keys/moved.pem", exchange -> {
+            exchange.getResponseHeaders().add("Location", "/elsewhere/key.pem");
+            exchange.sendResponseHeaders(302, -1);
+            exchange.close();
+        });
+        server.start();
+        try {
+            String base = "http://127.0.0.1:" + server.getAddress().getPort() + "/keys/";
+            List<String> prefixes = singletonList(base);
+            UrlPublicKeyResolver resolver = new UrlPublicKeyResolver(Runnable::run, prefixes);
+
+            assertNotNull(resolver.resolvePublicKey(url(base + "key.pem")).get());
+            try {
+                resolver.resolvePublicKey(url(base + "moved.pem")).get();
+                fail("Expected the redirect to be refused");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause().getMessage(), e.getCause().getMessage().contains("HTTP 302"));
+            }
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    private static void assertUntrusted(UrlPublicKeyResolver resolver, String ref) {
+        assertFalse(ref + " should not be trusted", isTrusted(resolver, ref));
+    }
+
+    private static boolean isTrusted(UrlPublicKeyResolver resolver, String ref) {
+        return resolver.isTrusted(url(ref));
+    }
+}
@@ -0,0 +1,51 @@
+package net.jtownson.odysseyj;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Paths;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Arrays.asList;
+import static org.junit.Assert.*;
+
+public class VCPServerTest {
+
+    private final VCPServer server = new VCPServer(asList("ES256"));
+
+    @Test
+    public void answersOneLinePerRequest() throws Exception {
+        String requests = "ping\n\nvc " + JsonStreamDecoderTest.vcJson + "\nvp {}\n";
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        server.serve(new ByteArrayInputStream(requests.getBytes(UTF_8)), out);
+
+        String[] responses = new String(out.toByteArray(), UTF_8).split("\n");
+        assertEquals(3, responses.length);
+        assertEquals("OK", responses[0]);
+        assertEquals("OK", responses[1]);
+        assertEquals("FAIL " + VCJsonCodec.typeError("VerifiablePresentation"), responses[2]);
+    }
+
+    @Test
+    public void verifiesJwsWithKeysReadFromTrustedKids() throws Exception {
+        SignatureDefinition signer = KeyFoo.getKeyPair();
+        String jws = JwsCodecTest.issue(new SignatureDefinition(
+                signer.getAlg(), Paths.get("id_ecdsa.pub").toUri().toURL(), signer.getPrivateKey()));
+
+        assertTrue(server.handle("vc-jws " + jws).startsWith("FAIL No trusted keys"));
+
+        VCPServer trusting = new VCPServer(asList("ES256"), asList(Paths.get("").toUri().toString()));
+        String response = trusting.handle("vc-jws " + jws);
+        assertTrue(response, response.startsWith("OK {"));
+        assertTrue(response.contains("https://example.com/1"));
+
+        String tampered = jws.substring(0, jws.length() - 4) + "AAAA";
+        assertEquals("FAIL Invalid signature detected", trusting.handle("vc-jws " + tampered));
+        assertEquals("FAIL No such file no-such-file.json", trusting.handle("vc no-such-file.json"));
+
+        VCPServer httpsOnly = new VCPServer(asList("ES256"), asList("https://issuer.example/keys/"));
+        assertTrue(httpsOnly.handle("vc-jws " + jws).contains("is not trusted"));
+    }
+}
@@ -0,0 +1,73 @@
+package net.jtownson.odysseyj;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import picocli.CommandLine;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static org.junit.Assert.*;
+
+public class VCPTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void expandsFilesDirectoriesAndGlobs() throws Exception {
+        Path root = folder.getRoot().toPath();
+        Path a = write("a.json", JsonStreamDecoderTest.vcJson);
+        Path b = write("b.jsonld", JsonStreamDecoderTest.vcJson);
+        Path notes = write("notes.txt", "");
+        Path nested = write("sub/c.json", JsonStreamDecoderTest.vcJson);
+
+        assertEquals(singletonList(notes), VCP.expand(singletonList(notes.toString())));
+        assertEquals(asList(a, b, nested), VCP.expand(singletonList(root.toString())));
+        assertEquals(singletonList(a), VCP.expand(singletonList(root + "/*.json")));
+        assertEquals(asList(a, nested), VCP.expand(singletonList(root + "/**.json")));
+        assertEquals(singletonList(nested), VCP.expand(singletonList(root + "/*/*.json")));
+        assertEquals(emptyList(), VCP.expand(singletonList(root + "/*.xml")));
+    }
+
+    @Test
+    public void failsTheRunWhenAnyFileFails() throws Exception {
+        Path valid = write("valid.json", JsonStreamDecoderTest.vcJson);
+        Path invalid = write("invalid.json", "{}");
+
+        assertEquals(0, run(valid.toString(), folder.getRoot() + "/valid*.json"));
+        assertEquals(1, run(folder.getRoot() + "/*.xml"));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        PrintStream stdout = System.out;
+        System.setOut(new PrintStream(out, true, "UTF-8"));
+        try {
+            assertEquals(1, run("-j", "2", folder.getRoot().toString()));
+        } finally {
+            System.setOut(stdout);
+        }
+        String[] lines = new String(out.toByteArray(), UTF_8).split("\n");
+        assertEquals("FAIL " + invalid + ": " + VCJsonCodec.typeError("VerifiableCredential"), lines[0]);
+        assertEquals("PASS " + valid, lines[1]);
+        assertTrue(lines[2], lines[2].startsWith("2 files, 1 passed, 1 failed in "));
+    }
+
+    private static int run(String... args) {
+        return new CommandLine(new VCP()).execute(args);
+    }
+
+    private Path write(String name, String content) throws IOException {
+        File file = new File(folder.getRoot(), name);
+        file.getParentFile().mkdirs();
+        return Files.write(file.toPath(), content.getBytes(UTF_8));
+    }
+}
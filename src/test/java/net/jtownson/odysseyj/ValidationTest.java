@@ -0,0 +1,53 @@
+package net.jtownson.odysseyj;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.Test;
+
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.*;
+
+public class ValidationTest {
+
+    @Test
+    public void collectsEveryErrorWithItsPointer() throws Exception {
+        ObjectNode vc = (ObjectNode) CodecContext.DEFAULT.getObjectMapper().readTree(JsonStreamDecoderTest.vcJson);
+        vc.put("issuer", "not a uri");
+        vc.put("issuanceDate", "2010-01-01");
+        ((ArrayNode) vc.get("credentialSubject")).add(1);
+        String vpJson = "{\"@context\": \"https://www.w3.org/2018/credentials/v1\", \"type\": [\"VerifiablePresentation\", 2]," +
+                "\"verifiableCredential\": [" + JsonStreamDecoderTest.vcJson + ", " + vc + "]}";
+
+        ValidationResult<VP> result = CodecContext.DEFAULT.validateVp(vpJson.getBytes(UTF_8));
+
+        assertFalse(result.isValid());
+        assertFalse(result.getValue().isPresent());
+        List<ValidationError> errors = result.getErrors();
+        assertEquals("/type/1", errors.get(0).getPointer());
+        assertEquals("/verifiableCredential/1/issuer", errors.get(1).getPointer());
+        assertEquals("/verifiableCredential/1/issuanceDate", errors.get(2).getPointer());
+        assertEquals("/verifiableCredential/1/credentialSubject/2", errors.get(3).getPointer());
+        assertEquals("/proof", errors.get(4).getPointer());
+        assertEquals(5, errors.size());
+
+        try {
+            VCJsonCodec.decode((JsonNode) vc);
+            fail("Expected a ParseError");
+        } catch (ParseError e) {
+            assertEquals(VCJsonCodec.validate(vc).getErrors().get(0).getMessage(), e.getMessage());
+            assertEquals(0, e.getStackTrace().length);
+        }
+    }
+
+    @Test
+    public void validDocumentsDecodeAsBefore() throws Exception {
+        ValidationResult<VC> result = CodecContext.DEFAULT.validateVc(JsonStreamDecoderTest.vcJson.getBytes(UTF_8));
+
+        assertTrue(result.isValid());
+        assertEquals(CodecContext.DEFAULT.decodeVc(JsonStreamDecoderTest.vcJson.getBytes(UTF_8)), result.get());
+        assertEquals("", CodecContext.DEFAULT.validateVc("{".getBytes(UTF_8)).getErrors().get(0).getPointer());
+    }
+}
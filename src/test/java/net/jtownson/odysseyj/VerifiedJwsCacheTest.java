@@ -0,0 +1,161 @@
+package net.jtownson.odysseyj;
+
+import org.junit.Test;
+
+import java.net.URL;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.Collections.singletonList;
+import static net.jtownson.odysseyj.URICreator.url;
+import static org.jose4j.jws.AlgorithmIdentifiers.ECDSA_USING_P256_CURVE_AND_SHA256;
+import static org.junit.Assert.*;
+
+public class VerifiedJwsCacheTest {
+
+    private static final List<String> ES256 = singletonList(ECDSA_USING_P256_CURVE_AND_SHA256);
+
+    private final AtomicInteger resolutions = new AtomicInteger();
+    private final CachingPublicKeyResolver resolver = CachingPublicKeyResolver.of(publicKeyRef -> {
+        resolutions.incrementAndGet();
+        return CompletableFuture.completedFuture(KeyFoo.getPublicKeyFromRef(publicKeyRef));
+    });
+
+    @Test
+    public void repeatVerificationIsServedFromTheCache() throws Exception {
+        VerifiedJwsCache cache = VerifiedJwsCache.builder().publicKeyResolver(resolver).clock(at(2020, 6, 1)).build();
+        String jws = JwsCodecTest.issue("https://example.com/1");
+
+        VC first = verify(jws, cache);
+        VC second = verify(jws, cache);
+
+        assertSame(first, second);
+        assertEquals(1, cache.getHitCount());
+        assertNull(cache.get(singletonList("ES384"), jws));
+    }
+
+    @Test
+    public void entriesAreDroppedWhenTheSigningKeyIsRemovedFromTheResolver() throws Exception {
+        VerifiedJwsCache cache = VerifiedJwsCache.builder().publicKeyResolver(resolver).clock(at(2020, 6, 1)).build();
+        String jws = JwsCodecTest.issue("https://example.com/1");
+        verify(jws, cache);
+        assertEquals(1, cache.size());
+
+        resolver.invalidate(KeyFoo.getKeyPair().getPublicKeyRef());
+
+        assertEquals(0, cache.size());
+        verify(jws, cache);
+        assertEquals(2, resolutions.get());
+    }
+
+    @Test
+    public void expiredCredentialsAreNotReturned() throws Exception {
+        String jws = JwsCodecTest.issue("https://example.com/1");
+        VerifiedJwsCache cache = VerifiedJwsCache.builder().clock(at(2020, 12, 31)).build();
+        VerifiedJwsCache later = VerifiedJwsCache.builder().clock(at(2021, 1, 2)).build();
+
+        verify(jws, cache);
+        verify(jws, later);
+
+        assertNotNull(cache.get(ES256, jws));
+        assertEquals(0, later.size());
+    }
+
+    @Test
+    public void boundedByEstimatedWeight() throws Exception {
+        String jws = JwsCodecTest.issue("https://example.com/1");
+        long oneEntry = jws.length() * 4L + 256;
+        VerifiedJwsCache cache = VerifiedJwsCache.builder().maximumWeight(oneEntry * 2).clock(at(2020, 6, 1)).build();
+
+        verify(jws, cache);
+        verify(JwsCodecTest.issue("https://example.com/2"), cache);
+        verify(JwsCodecTest.issue("https://example.com/3"), cache);
+
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictionCount());
+        assertNull(cache.get(ES256, jws));
+        assertTrue(cache.getWeight() <= oneEntry * 2);
+    }
+
+    @Test
+    public void invalidationMatchesKidsAsTheResolverReportsThem() throws Exception {
+        VerifiedJwsCache cache = VerifiedJwsCache.builder().publicKeyResolver(resolver).clock(at(2020, 6, 1)).build();
+        String jws = JwsCodecTest.issue("https://example.com/1");
+        VC vc = verify(jws, cache);
+        cache.invalidateAll();
+
+        URL publicKeyRef = KeyFoo.getKeyPair().getPublicKeyRef();
+        String rawKid = publicKeyRef.toString().replaceFirst("^file:", "FILE:");
+        VerifiedJwsCache.Key key = cache.key(ES256, jws);
+        cache.invalidateKid("https://issuer.example/other-key");
+        cache.put(key, rawKid, vc);
+        assertEquals(1, cache.size());
+
+        resolver.invalidate(publicKeyRef);
+        assertEquals(0, cache.size());
+
+        cache.put(key, rawKid, vc);
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void entriesLapseAfterTheResolverTtl() throws Exception {
+        MutableClock clock = new MutableClock(at(2020, 6, 1).instant());
+        CachingPublicKeyResolver shortLived = CachingPublicKeyResolver.builder()
+                .delegate(JwsCodecTest.resolver())
+                .ttl(Duration.ofMinutes(1))
+                .build();
+        VerifiedJwsCache cache = VerifiedJwsCache.builder().publicKeyResolver(shortLived).clock(clock).build();
+        String jws = JwsCodecTest.issue("https://example.com/1");
+        verify(jws, cache);
+
+        clock.instant = clock.instant.plusSeconds(59);
+        assertNotNull(cache.get(ES256, jws));
+        clock.instant = clock.instant.plusSeconds(1);
+        assertNull(cache.get(ES256, jws));
+    }
+
+    private VC verify(String jws, VerifiedJwsCache cache) throws Exception {
+        JwsVerifier verifier = JwsVerifier.builder()
+                .algWhitelist(ES256)
+                .publicKeyResolver(resolver)
+                .verifiedJwsCache(cache)
+                .build();
+        return VC.fromJws(jws, verifier).get();
+    }
+
+    private static Clock at(int year, int month, int day) {
+        Instant instant = LocalDate.of(year, month, day).atStartOfDay().toInstant(ZoneOffset.UTC);
+        return Clock.fixed(instant, ZoneOffset.UTC);
+    }
+
+    private static class MutableClock extends Clock {
+        private Instant instant;
+
+        MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
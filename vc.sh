@@ -3,5 +3,23 @@ set -euo pipefail
 
 dir="$( cd "$( dirname "${BASH_SOURCE[0]}" )" >/dev/null 2>&1 && pwd )"
 pushd "$dir" > /dev/null
+
+# With VCP_PORT set, a single file is checked by a daemon started with
+#   ./vc.sh --serve --port $VCP_PORT
+# instead of starting a JVM.
+if [[ -n "${VCP_PORT:-}" && $# -eq 1 && -f "$1" ]]; then
+    file="$( cd "$( dirname "$1" )" && pwd )/$( basename "$1" )"
+    exec 3<>"/dev/tcp/127.0.0.1/$VCP_PORT"
+    printf 'vc %s\n' "$file" >&3
+    IFS= read -r response <&3
+    exec 3>&-
+    if [[ "$response" == OK* ]]; then
+        cat "$file"
+        exit 0
+    fi
+    echo "Error processing file. Got an error: ${response#FAIL }" >&2
+    exit 1
+fi
+
 java -cp ./target/odysseyj-1.0-SNAPSHOT-jar-with-dependencies.jar net.jtownson.odysseyj.VCP "$@"
 popd > /dev/null